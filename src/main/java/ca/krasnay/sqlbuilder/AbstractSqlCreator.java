@@ -39,7 +39,37 @@ public abstract class AbstractSqlCreator implements PreparedStatementCreator, Se
      * integer that is incremented each time this method is called.
      */
     public String allocateParameter() {
-        return "param" + paramIndex++;
+        return ParameterizedPreparedStatementCreator.getIndexedParameterName(paramIndex++);
+    }
+
+    /**
+     * Allocates a new parameter as with {@link #allocateParameter()} and sets
+     * its value. The value is stored by index rather than by name, so this is
+     * cheaper than calling {@link #allocateParameter()} followed by
+     * {@link #setParameter(String, Object)}.
+     *
+     * @param value
+     *            Value of the parameter.
+     * @return Name of the allocated parameter, for inclusion in the SQL.
+     */
+    public String allocateParameter(Object value) {
+        int index = paramIndex++;
+        ppsc.setIndexedParameter(index, value);
+        return ParameterizedPreparedStatementCreator.getIndexedParameterName(index);
+    }
+
+    /**
+     * Renders the SQL and compiles it into an immutable, thread-safe
+     * {@link CompiledStatement}. The creator may continue to be modified
+     * without affecting the compiled statement.
+     *
+     * @param argumentNames
+     *            Names of the parameters to be supplied each time the compiled
+     *            statement is executed.
+     * @see ParameterizedPreparedStatementCreator#compile(String...)
+     */
+    public CompiledStatement compile(String... argumentNames) {
+        return ppsc.setSql(getBuilder().toString()).compile(argumentNames);
     }
 
     public PreparedStatement createPreparedStatement(Connection conn) throws SQLException {
@@ -58,6 +88,27 @@ public abstract class AbstractSqlCreator implements PreparedStatementCreator, Se
         return ppsc;
     }
 
+    /**
+     * Sets the number of rows the driver should fetch from the database at a
+     * time.
+     *
+     * @see ParameterizedPreparedStatementCreator#setFetchSize(int)
+     */
+    public AbstractSqlCreator setFetchSize(int fetchSize) {
+        ppsc.setFetchSize(fetchSize);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows the statement returns.
+     *
+     * @see ParameterizedPreparedStatementCreator#setMaxRows(int)
+     */
+    public AbstractSqlCreator setMaxRows(int maxRows) {
+        ppsc.setMaxRows(maxRows);
+        return this;
+    }
+
     /**
      * Sets a parameter for the creator.
      */
@@ -66,6 +117,27 @@ public abstract class AbstractSqlCreator implements PreparedStatementCreator, Se
         return this;
     }
 
+    /**
+     * Sets a parameter for the creator with an explicit SQL type.
+     *
+     * @see ParameterizedPreparedStatementCreator#setParameter(String, Object, int)
+     */
+    public AbstractSqlCreator setParameter(String name, Object value, int sqlType) {
+        ppsc.setParameter(name, value, sqlType);
+        return this;
+    }
+
+    /**
+     * Sets the number of seconds the driver waits for the statement to
+     * execute.
+     *
+     * @see ParameterizedPreparedStatementCreator#setQueryTimeout(int)
+     */
+    public AbstractSqlCreator setQueryTimeout(int queryTimeout) {
+        ppsc.setQueryTimeout(queryTimeout);
+        return this;
+    }
+
     @Override
     public String toString() {
         return ppsc.setSql(getBuilder().toString()).toString();
@@ -0,0 +1,244 @@
+package ca.krasnay.sqlbuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ca.krasnay.sqlbuilder.ParameterizedPreparedStatementCreator.SqlAndParams;
+
+/**
+ * Executes many insert, update, or delete statements of the same shape as
+ * JDBC batches. Example usage is as follows:
+ *
+ * <pre>
+ * BatchCreator batch = new BatchCreator(dataSource, 500);
+ *
+ * for (Employee emp : employees) {
+ *     batch.add(new InsertCreator(&quot;emp&quot;)
+ *     .setValue(&quot;id&quot;, emp.getId())
+ *     .setValue(&quot;name&quot;, emp.getName()));
+ * }
+ *
+ * int[] counts = batch.execute();
+ * </pre>
+ *
+ * The SQL of the batch is rendered and compiled once, from the first creator
+ * added. Each subsequent creator contributes only its parameter values, which
+ * are bound to the first creator's SQL by name without rendering the
+ * creator's own SQL. Each creator must therefore set the same parameters as
+ * the first, which for creators built with <code>setValue</code> means
+ * setting the same columns. Raw SQL, such as that given to
+ * <code>setRaw</code>, is taken from the first creator only. Rows are
+ * accumulated and sent to the database each time the batch size is reached,
+ * with the remainder sent by {@link #execute()}.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class BatchCreator {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private int batchSize;
+
+    /**
+     * Template compiled from the SQL of the first row.
+     */
+    private SqlTemplate template;
+
+    /**
+     * Number of parameters set by the first row.
+     */
+    private int parameterCount;
+
+    private String sql;
+
+    private List<List<Object>> rows = new ArrayList<List<Object>>();
+
+    private int rowCount;
+
+    /**
+     * Update counts of the batches sent so far.
+     */
+    private List<int[]> counts = new ArrayList<int[]>();
+
+    /**
+     * Constructor.
+     *
+     * @param dataSource
+     *            DataSource on which to execute the statements.
+     * @param batchSize
+     *            Maximum number of rows to send to the database at once.
+     */
+    public BatchCreator(DataSource dataSource, int batchSize) {
+        this(new JdbcTemplate(dataSource), batchSize);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jdbcTemplate
+     *            JdbcTemplate with which to execute the statements.
+     * @param batchSize
+     *            Maximum number of rows to send to the database at once.
+     */
+    public BatchCreator(JdbcTemplate jdbcTemplate, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds a row to the batch, given an update or delete creator.
+     *
+     * @throws IllegalArgumentException
+     *             if the row's parameters differ from those of the first row.
+     */
+    public BatchCreator add(AbstractSqlCreator creator) {
+        ParameterizedPreparedStatementCreator ppsc = creator.getPreparedStatementCreator();
+        if (template == null) {
+            ppsc.setSql(creator.getBuilder().toString());
+        }
+        return addRow(ppsc);
+    }
+
+    /**
+     * Adds a row to the batch, given an insert creator.
+     *
+     * @throws IllegalArgumentException
+     *             if the row's parameters differ from those of the first row.
+     */
+    public BatchCreator add(InsertCreator creator) {
+        ParameterizedPreparedStatementCreator ppsc = creator.getPreparedStatementCreator();
+        if (template == null) {
+            ppsc.setSql(creator.getBuilder().toString());
+        }
+        return addRow(ppsc);
+    }
+
+    /**
+     * Adds a row to the batch.
+     *
+     * @throws IllegalArgumentException
+     *             if the row's SQL or parameters differ from those of the
+     *             first row.
+     */
+    public BatchCreator add(ParameterizedPreparedStatementCreator ppsc) {
+        if (template != null && !template.getSql().equals(ppsc.getSql())) {
+            throw new IllegalArgumentException(String.format("Row %d of the batch has a different shape than the first row. Expected [%s] but got [%s]",
+                    rowCount, template.getSql(), ppsc.getSql()));
+        }
+        return addRow(ppsc);
+    }
+
+    private BatchCreator addRow(ParameterizedPreparedStatementCreator ppsc) {
+
+        if (template == null) {
+
+            template = SqlTemplate.get(ppsc.getSql());
+            parameterCount = ppsc.getParameterCount();
+
+            SqlAndParams sap = ppsc.createSqlAndParams(template);
+            sql = sap.getSql();
+            rows.add(sap.getParams());
+
+        } else {
+
+            if (ppsc.getParameterCount() != parameterCount) {
+                throw new IllegalArgumentException(String.format("Row %d of the batch has a different shape than the first row. Expected %d parameters but got %d",
+                        rowCount, parameterCount, ppsc.getParameterCount()));
+            }
+
+            SqlAndParams sap;
+            try {
+                sap = ppsc.createSqlAndParams(template);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Row %d of the batch has a different shape than the first row. %s",
+                        rowCount, e.getMessage()), e);
+            }
+
+            // Only differs if a collection parameter has a different size
+            if (!sql.equals(sap.getSql())) {
+                throw new IllegalArgumentException(String.format("Row %d of the batch has a different shape than the first row. Expected [%s] but got [%s]",
+                        rowCount, sql, sap.getSql()));
+            }
+
+            rows.add(sap.getParams());
+        }
+
+        rowCount++;
+
+        if (rows.size() >= batchSize) {
+            flush();
+        }
+
+        return this;
+    }
+
+    /**
+     * Sends any remaining rows to the database, and returns the update count
+     * of each row added to this batch.
+     */
+    public int[] execute() {
+
+        flush();
+
+        int total = 0;
+        for (int[] batchCounts : counts) {
+            total += batchCounts.length;
+        }
+
+        int[] result = new int[total];
+        int start = 0;
+        for (int[] batchCounts : counts) {
+            System.arraycopy(batchCounts, 0, result, start, batchCounts.length);
+            start += batchCounts.length;
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends the accumulated rows to the database.
+     */
+    private void flush() {
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        final List<List<Object>> batch = rows;
+        rows = new ArrayList<List<Object>>();
+
+        int[] batchCounts = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+
+            public int getBatchSize() {
+                return batch.size();
+            }
+
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                List<Object> params = batch.get(i);
+                for (int j = 0; j < params.size(); j++) {
+                    ParameterBinders.bind(ps, j + 1, params.get(j));
+                }
+            }
+        });
+
+        counts.add(batchCounts);
+    }
+
+    /**
+     * Returns the SQL of the batch, or null if no rows have been added.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+}
@@ -0,0 +1,18 @@
+package ca.krasnay.sqlbuilder;
+
+import java.util.List;
+
+/**
+ * Supplier that can return several values at once, for example a database
+ * sequence that can allocate many primary keys in a single round trip.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public interface BulkSupplier<T> extends Supplier<T> {
+
+    /**
+     * Returns the given number of values.
+     */
+    public List<T> get(int count);
+
+}
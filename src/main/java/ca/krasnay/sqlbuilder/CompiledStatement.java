@@ -0,0 +1,201 @@
+package ca.krasnay.sqlbuilder;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.SqlProvider;
+
+/**
+ * Immutable, pre-rendered form of a statement, returned by the
+ * <code>compile</code> methods of the creators. A compiled statement holds
+ * the final JDBC SQL and the layout of its parameters, so it can be kept in a
+ * static field and shared by any number of threads. Each execution supplies
+ * only the values of the statement's arguments:
+ *
+ * <pre>
+ * private static final CompiledStatement FIND_BY_DEPT = new SelectCreator()
+ * .column("name")
+ * .from("Employee")
+ * .where("dept_id = :deptId")
+ * .whereEquals("active", true)
+ * .compile("deptId");
+ *
+ * new JdbcTemplate(dataSource).query(FIND_BY_DEPT.bind(deptId), rowMapper);
+ * </pre>
+ *
+ * Parameters that are not named as arguments when the statement is compiled
+ * keep the value they had in the creator at that time, as do the creator's
+ * fetch size, max rows and query timeout.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public final class CompiledStatement implements Serializable {
+
+    /**
+     * Creator returned by {@link CompiledStatement#bind(Object...)}.
+     */
+    private static class BoundStatement implements PreparedStatementCreator, SqlProvider {
+
+        private final CompiledStatement statement;
+
+        private final Object[] args;
+
+        private BoundStatement(CompiledStatement statement, Object[] args) {
+            this.statement = statement;
+            this.args = args;
+        }
+
+        public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+            PreparedStatement ps = con.prepareStatement(statement.sql);
+            statement.bind(ps, args);
+
+            if (statement.fetchSize > 0) {
+                ps.setFetchSize(statement.fetchSize);
+            }
+
+            if (statement.maxRows > 0) {
+                ps.setMaxRows(statement.maxRows);
+            }
+
+            if (statement.queryTimeout > 0) {
+                ps.setQueryTimeout(statement.queryTimeout);
+            }
+
+            return ps;
+        }
+
+        public String getSql() {
+            return statement.sql;
+        }
+
+        @Override
+        public String toString() {
+            return statement.sql + " " + Arrays.asList(args);
+        }
+    }
+
+    private static final long serialVersionUID = 1;
+
+    private final String sql;
+
+    private final String[] argumentNames;
+
+    /**
+     * For each "?" in the SQL, the index of the argument that supplies its
+     * value, or -1 if the value is fixed.
+     */
+    private final int[] slotArguments;
+
+    /**
+     * For each "?" in the SQL, its fixed value, if any.
+     */
+    private final Object[] slotValues;
+
+    private final int fetchSize;
+
+    private final int maxRows;
+
+    private final int queryTimeout;
+
+    CompiledStatement(String sql, String[] argumentNames, int[] slotArguments, Object[] slotValues,
+            int fetchSize, int maxRows, int queryTimeout) {
+        this.sql = sql;
+        this.argumentNames = argumentNames;
+        this.slotArguments = slotArguments;
+        this.slotValues = slotValues;
+        this.fetchSize = fetchSize;
+        this.maxRows = maxRows;
+        this.queryTimeout = queryTimeout;
+    }
+
+    /**
+     * Returns a PreparedStatementCreator that executes this statement with the
+     * given argument values.
+     *
+     * @param args
+     *            Values of the arguments, in the order in which they were
+     *            named when the statement was compiled.
+     */
+    public PreparedStatementCreator bind(Object... args) {
+        checkArguments(args);
+        return new BoundStatement(this, args);
+    }
+
+    /**
+     * Sets the parameters of a prepared statement created from this
+     * statement's SQL. This is useful when the caller manages the prepared
+     * statement itself, for example when adding rows to a JDBC batch.
+     *
+     * @param ps
+     *            Prepared statement created from {@link #getSql()}.
+     * @param args
+     *            Values of the arguments, in the order in which they were
+     *            named when the statement was compiled.
+     */
+    public void bind(PreparedStatement ps, Object... args) throws SQLException {
+        checkArguments(args);
+        for (int i = 0; i < slotArguments.length; i++) {
+            int arg = slotArguments[i];
+            ParameterBinders.bind(ps, i + 1, arg >= 0 ? args[arg] : slotValues[i]);
+        }
+    }
+
+    private void checkArguments(Object[] args) {
+        if (args.length != argumentNames.length) {
+            throw new IllegalArgumentException("Expected " + argumentNames.length + " arguments " + getArgumentNames()
+                    + " but got " + args.length);
+        }
+    }
+
+    /**
+     * Returns the names of the statement's arguments, in the order in which
+     * their values must be supplied.
+     */
+    public List<String> getArgumentNames() {
+        return Collections.unmodifiableList(Arrays.asList(argumentNames));
+    }
+
+    /**
+     * Returns the fetch size applied to statements created by
+     * {@link #bind(Object...)}, or zero for the driver's default.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the maximum number of rows applied to statements created by
+     * {@link #bind(Object...)}, or zero for no limit.
+     */
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Returns the timeout, in seconds, applied to statements created by
+     * {@link #bind(Object...)}, or zero for no limit.
+     */
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    /**
+     * Returns the SQL of the statement, with parameters replaced by question
+     * marks.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+}
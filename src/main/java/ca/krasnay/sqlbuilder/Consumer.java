@@ -0,0 +1,13 @@
+package ca.krasnay.sqlbuilder;
+
+/**
+ * Interface used to pass objects one at a time to a callback, for example the
+ * rows of a streamed query.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public interface Consumer<T> {
+
+    public void accept(T t);
+
+}
@@ -42,10 +42,9 @@ public class DeleteCreator extends AbstractSqlCreator {
 
     public DeleteCreator whereEquals(String expr, Object value) {
 
-        String param = allocateParameter();
+        String param = allocateParameter(value);
 
         builder.where(expr + " = :" + param);
-        setParameter(param, value);
 
         return this;
     }
@@ -0,0 +1,174 @@
+package ca.krasnay.sqlbuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * SqlExecutor that runs statements with plain JDBC, without the callback and
+ * statement-settings layers of JdbcTemplate. Connections are obtained with
+ * {@link DataSourceUtils}, so statements take part in the current
+ * Spring-managed transaction, if any.
+ *
+ * <p>The exception translator is only created when the first SQLException is
+ * thrown. As with JdbcTemplate, the statement and connection are released
+ * before the exception is translated, since the default translator may need a
+ * connection of its own to read the database's metadata. The timeout of the
+ * current transaction, if any, is applied to each statement. Unlike
+ * JdbcTemplate, this executor does not check whether the driver supports
+ * batch updates, and does not apply default statement settings; use the
+ * options of the creators instead.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class DirectSqlExecutor implements SqlExecutor {
+
+    private final DataSource dataSource;
+
+    private volatile SQLExceptionTranslator exceptionTranslator;
+
+    public DirectSqlExecutor(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize, ParameterizedPreparedStatementSetter<T> pss)
+            throws DataAccessException {
+
+        List<int[]> counts = new ArrayList<int[]>();
+
+        Connection con = getConnection();
+        PreparedStatement ps = null;
+        try {
+            ps = con.prepareStatement(sql);
+            DataSourceUtils.applyTransactionTimeout(ps, dataSource);
+            int pending = 0;
+            for (T args : batchArgs) {
+                pss.setValues(ps, args);
+                ps.addBatch();
+                if (++pending == batchSize) {
+                    counts.add(ps.executeBatch());
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                counts.add(ps.executeBatch());
+            }
+        } catch (SQLException e) {
+            JdbcUtils.closeStatement(ps);
+            ps = null;
+            DataSourceUtils.releaseConnection(con, dataSource);
+            con = null;
+            throw translate("batchUpdate", sql, e);
+        } finally {
+            JdbcUtils.closeStatement(ps);
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+
+        return counts.toArray(new int[counts.size()][]);
+    }
+
+    private Connection getConnection() {
+        try {
+            return DataSourceUtils.doGetConnection(dataSource);
+        } catch (SQLException e) {
+            throw translate("getConnection", null, e);
+        }
+    }
+
+    public SQLExceptionTranslator getExceptionTranslator() {
+        SQLExceptionTranslator translator = exceptionTranslator;
+        if (translator == null) {
+            translator = new SQLErrorCodeSQLExceptionTranslator(dataSource);
+            exceptionTranslator = translator;
+        }
+        return translator;
+    }
+
+    private static String getSql(PreparedStatementCreator psc) {
+        return psc instanceof SqlProvider ? ((SqlProvider) psc).getSql() : null;
+    }
+
+    public <T> T query(PreparedStatementCreator psc, ResultSetExtractor<T> rse) throws DataAccessException {
+
+        Connection con = getConnection();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = psc.createPreparedStatement(con);
+            DataSourceUtils.applyTransactionTimeout(ps, dataSource);
+            rs = ps.executeQuery();
+            return rse.extractData(rs);
+        } catch (SQLException e) {
+            JdbcUtils.closeResultSet(rs);
+            rs = null;
+            JdbcUtils.closeStatement(ps);
+            ps = null;
+            DataSourceUtils.releaseConnection(con, dataSource);
+            con = null;
+            throw translate("query", getSql(psc), e);
+        } finally {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(ps);
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    public <T> List<T> query(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+        return query(psc, new RowMapperResultSetExtractor<T>(rowMapper));
+    }
+
+    /**
+     * Sets the translator used to convert SQLExceptions. By default, a
+     * translator based on the error codes of the data source's database is
+     * created when first needed.
+     */
+    public DirectSqlExecutor setExceptionTranslator(SQLExceptionTranslator exceptionTranslator) {
+        this.exceptionTranslator = exceptionTranslator;
+        return this;
+    }
+
+    private DataAccessException translate(String task, String sql, SQLException e) {
+        DataAccessException dae = getExceptionTranslator().translate(task, sql, e);
+        return dae != null ? dae : new UncategorizedSQLException(task, sql, e);
+    }
+
+    public int update(PreparedStatementCreator psc) throws DataAccessException {
+
+        Connection con = getConnection();
+        PreparedStatement ps = null;
+        try {
+            ps = psc.createPreparedStatement(con);
+            DataSourceUtils.applyTransactionTimeout(ps, dataSource);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            JdbcUtils.closeStatement(ps);
+            ps = null;
+            DataSourceUtils.releaseConnection(con, dataSource);
+            con = null;
+            throw translate("update", getSql(psc), e);
+        } finally {
+            JdbcUtils.closeStatement(ps);
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+}
@@ -7,6 +7,21 @@ import java.util.List;
 /**
  * Builder for building SQL insert statements.
  *
+ * <p>Several rows can be inserted with a single statement by calling
+ * {@link #newRow()} between rows:
+ *
+ * <pre>
+ * new InsertBuilder(&quot;Employee&quot;)
+ * .set(&quot;id&quot;, &quot;1&quot;).set(&quot;name&quot;, &quot;'Larry'&quot;)
+ * .newRow()
+ * .set(&quot;id&quot;, &quot;2&quot;).set(&quot;name&quot;, &quot;'Curly'&quot;)
+ * .toString();
+ * </pre>
+ *
+ * This produces
+ * <code>insert into Employee (id, name) values (1, 'Larry'), (2, 'Curly')</code>.
+ * Each row must set the same columns in the same order as the first row.
+ *
  * @author John Krasnay <john@krasnay.ca>
  */
 public class InsertBuilder extends AbstractSqlBuilder implements Serializable {
@@ -17,7 +32,7 @@ public class InsertBuilder extends AbstractSqlBuilder implements Serializable {
 
     private List<String> columns = new ArrayList<String>();
 
-    private List<String> values = new ArrayList<String>();
+    private List<List<String>> rows = new ArrayList<List<String>>();
 
     /**
      * Constructor.
@@ -27,6 +42,31 @@ public class InsertBuilder extends AbstractSqlBuilder implements Serializable {
      */
     public InsertBuilder(String table) {
         this.table = table;
+        rows.add(new ArrayList<String>());
+    }
+
+    /**
+     * Returns the number of columns in each row.
+     */
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    /**
+     * Returns the number of rows to be inserted.
+     */
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Starts a new row. Subsequent calls to {@link #set(String, String)} set
+     * values in the new row.
+     */
+    public InsertBuilder newRow() {
+        checkComplete(rows.size() - 1);
+        rows.add(new ArrayList<String>(columns.size()));
+        return this;
     }
 
     /**
@@ -40,20 +80,60 @@ public class InsertBuilder extends AbstractSqlBuilder implements Serializable {
      *            provide the single quotes and escape the internal quotes. It
      *            is more common to use a question mark or a token in the style
      *            of {@link ParameterizedPreparedStatementCreator}, e.g. ":foo".
+     * @throws IllegalArgumentException
+     *             if this is not the first row and the column does not match
+     *             the corresponding column of the first row.
      */
     public InsertBuilder set(String column, String value) {
-        columns.add(column);
-        values.add(value);
+
+        List<String> row = rows.get(rows.size() - 1);
+
+        if (rows.size() == 1) {
+            columns.add(column);
+        } else if (row.size() >= columns.size() || !columns.get(row.size()).equals(column)) {
+            throw new IllegalArgumentException(String.format("Expected column %s in row %d but got %s",
+                    row.size() < columns.size() ? columns.get(row.size()) : "(none)", rows.size() - 1, column));
+        }
+
+        row.add(value);
+
         return this;
     }
 
+    private void checkComplete(int rowIndex) {
+        int size = rows.get(rowIndex).size();
+        if (size != columns.size()) {
+            throw new IllegalStateException(String.format("Row %d has %d values but there are %d columns",
+                    rowIndex, size, columns.size()));
+        }
+    }
+
     @Override
     public String toString() {
+        return toString(0, rows.size());
+    }
+
+    /**
+     * Returns SQL that inserts a range of the rows.
+     *
+     * @param fromRow
+     *            Index of the first row to include.
+     * @param toRow
+     *            Index after the last row to include.
+     */
+    public String toString(int fromRow, int toRow) {
         StringBuilder sql = new StringBuilder("insert into ").append(table).append(" (");
         appendList(sql, columns, "", ", ");
-        sql.append(") values (");
-        appendList(sql, values, "", ", ");
-        sql.append(")");
+        sql.append(") values ");
+        for (int i = fromRow; i < toRow; i++) {
+            checkComplete(i);
+            if (i > fromRow) {
+                sql.append(", ");
+            }
+            sql.append("(");
+            appendList(sql, rows.get(i), "", ", ");
+            sql.append(")");
+        }
         return sql.toString();
     }
 }
@@ -4,6 +4,8 @@ import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.jdbc.core.PreparedStatementCreator;
 
@@ -18,6 +20,10 @@ import org.springframework.jdbc.core.PreparedStatementCreator;
  * new JdbcTemplate(dataSource).update(psc);
  * </pre>
  *
+ * To insert several rows in one statement, call {@link #newRow()} between
+ * rows. Use {@link #split(Dialect)} or {@link #split(int)} to keep each
+ * statement within the database's limit on bind parameters.
+ *
  * @author John Krasnay <john@krasnay.ca>
  */
 public class InsertCreator implements PreparedStatementCreator, Serializable {
@@ -28,15 +34,66 @@ public class InsertCreator implements PreparedStatementCreator, Serializable {
 
     private ParameterizedPreparedStatementCreator ppsc = new ParameterizedPreparedStatementCreator();
 
+    /**
+     * Index of the row currently being set.
+     */
+    private int row;
+
     public InsertCreator(String table) {
         builder = new InsertBuilder(table);
     }
 
+    /**
+     * Renders the SQL and compiles it into an immutable, thread-safe
+     * {@link CompiledStatement}.
+     *
+     * @param argumentNames
+     *            Names of the parameters to be supplied each time the compiled
+     *            statement is executed.
+     * @see ParameterizedPreparedStatementCreator#compile(String...)
+     */
+    public CompiledStatement compile(String... argumentNames) {
+        return ppsc.setSql(builder.toString()).compile(argumentNames);
+    }
+
     public PreparedStatement createPreparedStatement(Connection conn) throws SQLException {
         ppsc.setSql(builder.toString());
         return ppsc.createPreparedStatement(conn);
     }
 
+    /**
+     * Returns the builder for this creator.
+     */
+    InsertBuilder getBuilder() {
+        return builder;
+    }
+
+    /**
+     * Returns the prepared statement creator for this creator. Its SQL is
+     * only rendered from the builder when the creator is executed or
+     * compiled.
+     */
+    ParameterizedPreparedStatementCreator getPreparedStatementCreator() {
+        return ppsc;
+    }
+
+    /**
+     * Starts a new row, so that this creator inserts several rows with a
+     * single statement. Each row must set the same columns in the same order
+     * as the first row. Parameters set by {@link #setValue(String, Object)}
+     * in rows after the first are named "column__N", where N is the index of
+     * the row.
+     */
+    public InsertCreator newRow() {
+        builder.newRow();
+        row++;
+        return this;
+    }
+
+    private String getParameterName(String column) {
+        return row == 0 ? column : column + "__" + row;
+    }
+
     public ParameterizedPreparedStatementCreator setParameter(String name, Object value) {
         return ppsc.setParameter(name, value);
     }
@@ -47,9 +104,72 @@ public class InsertCreator implements PreparedStatementCreator, Serializable {
     }
 
     public InsertCreator setValue(String column, Object value) {
-        setRaw(column, ":" + column);
-        setParameter(column, value);
+        String param = getParameterName(column);
+        setRaw(column, ":" + param);
+        setParameter(param, value);
+        return this;
+    }
+
+    /**
+     * Sets a column value with an explicit SQL type. This allows null values
+     * to be bound without the driver having to look up the column type.
+     *
+     * @param column
+     *            Name of the column.
+     * @param value
+     *            Value of the column. May be null.
+     * @param sqlType
+     *            SQL type of the column, from {@link java.sql.Types}.
+     */
+    public InsertCreator setValue(String column, Object value, int sqlType) {
+        String param = getParameterName(column);
+        setRaw(column, ":" + param);
+        ppsc.setParameter(param, value, sqlType);
         return this;
     }
 
+    /**
+     * Returns PreparedStatementCreators that together insert all the rows of
+     * this creator. Each statement inserts as many rows as fit within the
+     * dialect's limit on the number of bind parameters, or within
+     * {@link ParameterLimitedDialect#DEFAULT_MAX_PARAMETERS} if the dialect
+     * does not declare a limit.
+     *
+     * @param dialect
+     *            Database dialect. Must support multi-row VALUES lists.
+     * @see #split(int)
+     */
+    public List<PreparedStatementCreator> split(Dialect dialect) {
+        if (dialect instanceof ParameterLimitedDialect) {
+            return split(((ParameterLimitedDialect) dialect).getMaxParameters());
+        } else {
+            return split(ParameterLimitedDialect.DEFAULT_MAX_PARAMETERS);
+        }
+    }
+
+    /**
+     * Returns PreparedStatementCreators that together insert all the rows of
+     * this creator, each with at most the given number of bind parameters.
+     * Each returned creator has its own copy of the SQL and of the parameters
+     * of its rows, so it is unaffected by later changes to this creator and
+     * may be executed any number of times.
+     *
+     * @param maxParameters
+     *            Maximum number of bind parameters per statement.
+     */
+    public List<PreparedStatementCreator> split(int maxParameters) {
+
+        int rowsPerStatement = Math.max(1, maxParameters / Math.max(1, builder.getColumnCount()));
+        int rowCount = builder.getRowCount();
+
+        List<PreparedStatementCreator> result = new ArrayList<PreparedStatementCreator>();
+
+        for (int start = 0; start < rowCount; start += rowsPerStatement) {
+            String sql = builder.toString(start, Math.min(start + rowsPerStatement, rowCount));
+            result.add(ppsc.copyWithSql(sql));
+        }
+
+        return result;
+    }
+
 }
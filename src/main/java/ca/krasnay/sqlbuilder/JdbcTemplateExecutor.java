@@ -0,0 +1,52 @@
+package ca.krasnay.sqlbuilder;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * SqlExecutor that delegates to a Spring JdbcTemplate.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class JdbcTemplateExecutor implements SqlExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcTemplateExecutor(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize, ParameterizedPreparedStatementSetter<T> pss)
+            throws DataAccessException {
+        return jdbcTemplate.batchUpdate(sql, batchArgs, batchSize, pss);
+    }
+
+    public SQLExceptionTranslator getExceptionTranslator() {
+        return jdbcTemplate.getExceptionTranslator();
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public <T> T query(PreparedStatementCreator psc, ResultSetExtractor<T> rse) throws DataAccessException {
+        return jdbcTemplate.query(psc, rse);
+    }
+
+    public <T> List<T> query(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+        return jdbcTemplate.query(psc, rowMapper);
+    }
+
+    public int update(PreparedStatementCreator psc) throws DataAccessException {
+        return jdbcTemplate.update(psc);
+    }
+
+}
@@ -0,0 +1,26 @@
+package ca.krasnay.sqlbuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds a parameter value of a particular Java type to a prepared statement.
+ * Binders are registered by type with {@link ParameterBinders}.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public interface ParameterBinder {
+
+    /**
+     * Sets a parameter of a prepared statement.
+     *
+     * @param ps
+     *            Prepared statement whose parameter to set.
+     * @param index
+     *            Index of the parameter, starting at 1.
+     * @param value
+     *            Value of the parameter. Never null.
+     */
+    public void bind(PreparedStatement ps, int index, Object value) throws SQLException;
+
+}
@@ -0,0 +1,255 @@
+package ca.krasnay.sqlbuilder;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Registry of {@link ParameterBinder}s by Java type. The binder for a type is
+ * resolved once and cached, so binding a parameter costs a single lookup
+ * followed by a direct call to the appropriate <code>setXxx</code> method of
+ * the prepared statement.
+ *
+ * <p>Common JDK types such as String, Long, and Timestamp are bound with their
+ * specific setters. A Spring {@link SqlParameterValue} with a declared SQL
+ * type is bound according to that type by Spring's
+ * {@link StatementCreatorUtils}, except that nulls are bound with
+ * {@link PreparedStatement#setNull(int, int)} directly. Its value is bound
+ * with the binder for the value's type only if the SQL type is unknown. Types
+ * without a registered binder fall back to {@link StatementCreatorUtils}.
+ * Applications can register binders for their own types, for example:
+ *
+ * <pre>
+ * ParameterBinders.register(Money.class, new ParameterBinder() {
+ *     public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+ *         ps.setBigDecimal(index, ((Money) value).getAmount());
+ *     }
+ * });
+ * </pre>
+ *
+ * A binder registered for a class or interface is also used for its
+ * sub-types, unless a more specific binder has been registered.
+ *
+ * <p>Resolved binders are only cached for types loaded by the class loader of
+ * this library or one of its parents, so that the cache does not keep the
+ * class loader of a redeployed application alive. Binders for other types are
+ * resolved on each call. Binders registered by an application are held until
+ * they are replaced, so an application deployed alongside a shared copy of
+ * this library should register binders only for its own types.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public final class ParameterBinders {
+
+    /**
+     * Binder that delegates to Spring's {@link StatementCreatorUtils}. Used
+     * for types without a registered binder.
+     */
+    private static final ParameterBinder DEFAULT_BINDER = new ParameterBinder() {
+        public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            StatementCreatorUtils.setParameterValue(ps, index, StatementCreatorUtils.javaTypeToSqlParameterType(value.getClass()), value);
+        }
+    };
+
+    /**
+     * Binders explicitly registered, by type. This map is replaced rather than
+     * modified when a binder is registered, so it can be read without
+     * locking.
+     */
+    private static volatile Map<Class<?>, ParameterBinder> registered = new LinkedHashMap<Class<?>, ParameterBinder>();
+
+    /**
+     * Binders resolved from the registered binders, by type. Entries are only
+     * added while holding the class lock, which {@link #register(Class, ParameterBinder)}
+     * also holds while clearing the map, so a binder resolved from an outdated
+     * set of registrations is never cached.
+     */
+    private static final Map<Class<?>, ParameterBinder> resolved = new ConcurrentHashMap<Class<?>, ParameterBinder>();
+
+    static {
+
+        register(String.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setString(index, (String) value);
+            }
+        });
+
+        register(Integer.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setInt(index, (Integer) value);
+            }
+        });
+
+        register(Long.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setLong(index, (Long) value);
+            }
+        });
+
+        register(Short.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setShort(index, (Short) value);
+            }
+        });
+
+        register(Byte.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setByte(index, (Byte) value);
+            }
+        });
+
+        register(Boolean.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setBoolean(index, (Boolean) value);
+            }
+        });
+
+        register(Double.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setDouble(index, (Double) value);
+            }
+        });
+
+        register(Float.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setFloat(index, (Float) value);
+            }
+        });
+
+        register(BigDecimal.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setBigDecimal(index, (BigDecimal) value);
+            }
+        });
+
+        register(java.sql.Date.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setDate(index, (java.sql.Date) value);
+            }
+        });
+
+        register(Time.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setTime(index, (Time) value);
+            }
+        });
+
+        register(Timestamp.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setTimestamp(index, (Timestamp) value);
+            }
+        });
+
+        register(byte[].class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setBytes(index, (byte[]) value);
+            }
+        });
+
+        register(SqlParameterValue.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                SqlParameterValue typedValue = (SqlParameterValue) value;
+                if (typedValue.getSqlType() == SqlTypeValue.TYPE_UNKNOWN) {
+                    ParameterBinders.bind(ps, index, typedValue.getValue());
+                } else if (typedValue.getValue() == null) {
+                    ps.setNull(index, typedValue.getSqlType());
+                } else {
+                    StatementCreatorUtils.setParameterValue(ps, index, typedValue, typedValue.getValue());
+                }
+            }
+        });
+
+    }
+
+    /**
+     * Binds a value to a prepared statement using the binder for the value's
+     * type. Null values are bound with Spring's {@link StatementCreatorUtils}.
+     *
+     * @param ps
+     *            Prepared statement whose parameter to set.
+     * @param index
+     *            Index of the parameter, starting at 1.
+     * @param value
+     *            Value of the parameter. May be null.
+     */
+    public static void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            StatementCreatorUtils.setParameterValue(ps, index, SqlTypeValue.TYPE_UNKNOWN, null);
+        } else {
+            getBinder(value.getClass()).bind(ps, index, value);
+        }
+    }
+
+    /**
+     * Returns the binder to use for values of the given type.
+     */
+    public static ParameterBinder getBinder(Class<?> type) {
+        ParameterBinder binder = resolved.get(type);
+        if (binder == null) {
+            synchronized (ParameterBinders.class) {
+                binder = resolve(type);
+                if (ClassUtils.isCacheSafe(type, ParameterBinders.class.getClassLoader())) {
+                    resolved.put(type, binder);
+                }
+            }
+        }
+        return binder;
+    }
+
+    /**
+     * Registers a binder for values of the given type and its sub-types. A
+     * binder already registered for the type is replaced.
+     *
+     * @param type
+     *            Java type of the values bound by the binder.
+     * @param binder
+     *            Binder for the type.
+     */
+    public static synchronized void register(Class<?> type, ParameterBinder binder) {
+        Map<Class<?>, ParameterBinder> newRegistered = new LinkedHashMap<Class<?>, ParameterBinder>(registered);
+        newRegistered.remove(type);
+        newRegistered.put(type, binder);
+        registered = newRegistered;
+        resolved.clear();
+    }
+
+    /**
+     * Finds the binder for a type: the binder registered for that exact type,
+     * or else the most recently registered binder for one of its super-types,
+     * or else the default binder.
+     */
+    private static ParameterBinder resolve(Class<?> type) {
+
+        Map<Class<?>, ParameterBinder> registered = ParameterBinders.registered;
+
+        ParameterBinder binder = registered.get(type);
+        if (binder != null) {
+            return binder;
+        }
+
+        List<Class<?>> types = new ArrayList<Class<?>>(registered.keySet());
+        for (int i = types.size() - 1; i >= 0; i--) {
+            if (types.get(i).isAssignableFrom(type)) {
+                return registered.get(types.get(i));
+            }
+        }
+
+        return DEFAULT_BINDER;
+    }
+
+    private ParameterBinders() {
+    }
+
+}
@@ -0,0 +1,25 @@
+package ca.krasnay.sqlbuilder;
+
+/**
+ * Optional interface for a {@link Dialect} whose database limits the number of
+ * bind parameters in a single statement. The limit is used to split large
+ * multi-row inserts and IN lists into several statements. Dialects that do
+ * not implement this interface are assumed to allow
+ * {@link #DEFAULT_MAX_PARAMETERS} parameters.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public interface ParameterLimitedDialect extends Dialect {
+
+    /**
+     * Conservative limit used for dialects that do not declare their own.
+     */
+    public static final int DEFAULT_MAX_PARAMETERS = 1000;
+
+    /**
+     * Returns the maximum number of bind parameters the database allows in a
+     * single statement.
+     */
+    public int getMaxParameters();
+
+}
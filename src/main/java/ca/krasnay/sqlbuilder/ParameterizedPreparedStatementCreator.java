@@ -3,19 +3,19 @@ package ca.krasnay.sqlbuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.PreparedStatementCreator;
-import org.springframework.jdbc.core.SqlTypeValue;
-import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.SqlParameterValue;
 
 import java.io.Serializable;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -27,12 +27,31 @@ import java.util.regex.Pattern;
  *         &quot;select * from Employee where name like :name&quot;).setParameter(&quot;name&quot;, &quot;Bob%&quot;).createPreparedStatement(conn);
  * </pre>
  *
- * The implementation performs simple text substitution of parameters, which can
- * lead to problems with things like this:
- * "select * from Employee where name = 'foo:bar'" In this case,
- * {@link #createPreparedStatement(Connection)} will fail if the
- * <code>bar</code> is not defined, or will result in
- * "select * from Employee where name = 'foo?'", both of which are wrong.
+ * Parameters are recognized by a simple lexer that skips string literals,
+ * quoted identifiers, comments, and Postgres dollar-quoted strings and
+ * <code>::</code> casts, so SQL such as
+ * "select * from Employee where name = 'foo:bar'" is left untouched.
+ *
+ * <p>A parameter whose value is a {@link Collection} is expanded into a
+ * comma-separated list of placeholders, which is handy for IN clauses:
+ *
+ * <pre>
+ * new ParameterizedPreparedStatementCreator()
+ * .setSql(&quot;select * from Employee where id in (:ids)&quot;)
+ * .setParameter(&quot;ids&quot;, Arrays.asList(1, 2, 3));
+ * </pre>
+ *
+ * To keep the number of distinct statements small, the list is padded to the
+ * next power of two by repeating its last element, so the example above
+ * produces <code>id in (?, ?, ?, ?)</code>. Lists longer than 1024 elements
+ * are instead padded to the next multiple of 1024. An empty collection is an
+ * error.
+ *
+ * <p>Parameters allocated by {@link AbstractSqlCreator#allocateParameter(Object)}
+ * are stored in an array indexed by their number rather than in a map.
+ * Binding these parameters requires no hashing or string comparisons.
+ * Parameters set by name are always kept in the map, even if their name has
+ * the "paramN" form of an allocated parameter.
  *
  * @author John Krasnay <john@krasnay.ca>
  *
@@ -65,15 +84,96 @@ public class ParameterizedPreparedStatementCreator implements Cloneable, Prepare
 
     private static final String NAME_REGEX = "[a-z][_a-z0-9]*";
 
-    private static final String PARAM_REGEX = ":(" + NAME_REGEX + ")";
     private static final Pattern NAME_PATTERN = Pattern.compile(NAME_REGEX, Pattern.CASE_INSENSITIVE);
 
-    private static final Pattern PARAM_PATTERN = Pattern.compile(PARAM_REGEX, Pattern.CASE_INSENSITIVE);
+    private static final String INDEXED_PREFIX = "param";
+
+    private static final String[] INDEXED_NAMES = new String[256];
+
+    static {
+        for (int i = 0; i < INDEXED_NAMES.length; i++) {
+            INDEXED_NAMES[i] = INDEXED_PREFIX + i;
+        }
+    }
+
+    /**
+     * Marks a slot in the indexed parameter array that has not been set.
+     */
+    private static final Object UNSET = new Serializable() {
+        private static final long serialVersionUID = 1;
+    };
+
+    private static final Object[] EMPTY = new Object[0];
+
+    /**
+     * Largest collection size padded to a power of two. Larger collections are
+     * padded to a multiple of this size, so that padding never adds more than
+     * this many placeholders.
+     */
+    private static final int MAX_BUCKET_SIZE = 1024;
+
+    /**
+     * Returns the name of the indexed parameter with the given index, e.g.
+     * "param3".
+     */
+    static String getIndexedParameterName(int index) {
+        return index < INDEXED_NAMES.length ? INDEXED_NAMES[index] : INDEXED_PREFIX + index;
+    }
+
+    /**
+     * Returns the index of an indexed parameter name such as "param3", or -1
+     * if the name is not of that form.
+     */
+    static int getParameterIndex(String name) {
+
+        int length = name.length();
+        int prefixLength = INDEXED_PREFIX.length();
+
+        if (length == prefixLength
+                || length > prefixLength + 9
+                || !name.startsWith(INDEXED_PREFIX)
+                || (name.charAt(prefixLength) == '0' && length > prefixLength + 1)) {
+            return -1;
+        }
+
+        int index = 0;
+        for (int i = prefixLength; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+
+        return index;
+    }
 
     private String sql;
 
     private Map<String, Object> parameterMap = new HashMap<String, Object>();
 
+    /**
+     * Values of parameters allocated by an {@link AbstractSqlCreator}, by
+     * index. A value here takes precedence over a value in parameterMap for
+     * the same "paramN" name.
+     */
+    private Object[] indexedParams = EMPTY;
+
+    /**
+     * Number of elements in use in indexedParams.
+     */
+    private int indexedCount;
+
+    /**
+     * Statement options applied to the prepared statement. Zero means the
+     * driver default.
+     */
+    private int fetchSize;
+
+    private int maxRows;
+
+    private int queryTimeout;
+
     public ParameterizedPreparedStatementCreator() {
     }
 
@@ -88,75 +188,364 @@ public class ParameterizedPreparedStatementCreator implements Cloneable, Prepare
         for (String key : other.parameterMap.keySet()) {
             this.parameterMap.put(key, other.parameterMap.get(key));
         }
+        if (other.indexedCount > 0) {
+            this.indexedParams = Arrays.copyOf(other.indexedParams, other.indexedCount);
+            this.indexedCount = other.indexedCount;
+        }
+        this.fetchSize = other.fetchSize;
+        this.maxRows = other.maxRows;
+        this.queryTimeout = other.queryTimeout;
     }
 
     public ParameterizedPreparedStatementCreator clone() {
         return new ParameterizedPreparedStatementCreator(this);
     }
 
+    /**
+     * Returns a new creator with the given SQL, the statement options of this
+     * creator, and only those parameters of this creator that the SQL refers
+     * to. Unlike {@link #clone()}, this takes time proportional to the size of
+     * the new SQL rather than to the number of parameters of this creator.
+     *
+     * @param sql
+     *            SQL of the new creator.
+     */
+    ParameterizedPreparedStatementCreator copyWithSql(String sql) {
+
+        ParameterizedPreparedStatementCreator copy = new ParameterizedPreparedStatementCreator().setSql(sql);
+        copy.fetchSize = fetchSize;
+        copy.maxRows = maxRows;
+        copy.queryTimeout = queryTimeout;
+
+        SqlTemplate template = SqlTemplate.get(sql);
+        for (int i = 0; i < template.getParamCount(); i++) {
+            int index = template.getParamIndex(i);
+            String name = template.getParamName(i);
+            if (index >= 0 && index < indexedCount && indexedParams[index] != UNSET) {
+                copy.setIndexedParameter(index, indexedParams[index]);
+            } else if (parameterMap.containsKey(name)) {
+                copy.parameterMap.put(name, parameterMap.get(name));
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * Compiles the current SQL into an immutable {@link CompiledStatement}.
+     * The named arguments are supplied each time the statement is executed;
+     * all other parameters keep their current values. The fetch size, max
+     * rows and query timeout are also carried over. Collection values of
+     * those other parameters are expanded when the statement is compiled,
+     * but argument values are always bound as single values.
+     *
+     * @param argumentNames
+     *            Names of the parameters to be supplied at execution time, in
+     *            the order in which their values will be supplied.
+     * @throws IllegalArgumentException
+     *             if an argument does not appear in the SQL, or if a parameter
+     *             that is not an argument has not been set.
+     */
+    public CompiledStatement compile(String... argumentNames) {
+
+        SqlTemplate template = SqlTemplate.get(sql);
+
+        int count = template.getParamCount();
+        StringBuilder psSql = new StringBuilder(sql.length());
+        List<Integer> slotArguments = new ArrayList<Integer>(count);
+        List<Object> slotValues = new ArrayList<Object>(count);
+        boolean[] used = new boolean[argumentNames.length];
+
+        for (int i = 0; i < count; i++) {
+            psSql.append(template.getFragment(i));
+            int arg = Arrays.asList(argumentNames).indexOf(template.getParamName(i));
+            if (arg >= 0) {
+                used[arg] = true;
+                psSql.append('?');
+                slotArguments.add(arg);
+                slotValues.add(null);
+            } else {
+                Object value = getParameterValue(template, i);
+                if (value instanceof Collection) {
+                    int size = appendCollection(psSql, slotValues, template.getParamName(i), (Collection<?>) value);
+                    for (int j = 0; j < size; j++) {
+                        slotArguments.add(-1);
+                    }
+                } else {
+                    psSql.append('?');
+                    slotArguments.add(-1);
+                    slotValues.add(value);
+                }
+            }
+        }
+
+        psSql.append(template.getFragment(count));
+
+        for (int i = 0; i < argumentNames.length; i++) {
+            if (!used[i]) {
+                throw new IllegalArgumentException("Argument '" + argumentNames[i] + "' does not appear in the SQL: " + sql);
+            }
+        }
+
+        int[] slotArgumentArray = new int[slotArguments.size()];
+        for (int i = 0; i < slotArgumentArray.length; i++) {
+            slotArgumentArray[i] = slotArguments.get(i);
+        }
+
+        return new CompiledStatement(psSql.toString(), argumentNames.clone(), slotArgumentArray, slotValues.toArray(),
+                fetchSize, maxRows, queryTimeout);
+    }
+
     public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
 
-        log.debug("createPreparedStatement: {}", sql);
-        for (String key : parameterMap.keySet()) {
-            log.debug("    {} => {}", key, parameterMap.get(key));
+        if (log.isDebugEnabled()) {
+            log.debug("createPreparedStatement: {}", sql);
+            Map<String, Object> params = getParameterMap();
+            for (String key : params.keySet()) {
+                log.debug("    {} => {}", key, params.get(key));
+            }
         }
 
         SqlAndParams sap = createSqlAndParams();
 
         PreparedStatement ps = con.prepareStatement(sap.getSql());
 
-        for (int i = 0; i < sap.getParams().size(); i++) {
-            Object paramValue = sap.getParams().get(i);
-            int paramSqlType = paramValue != null ? StatementCreatorUtils.javaTypeToSqlParameterType(paramValue.getClass()) : SqlTypeValue.TYPE_UNKNOWN;
-            StatementCreatorUtils.setParameterValue(ps, i + 1, paramSqlType, paramValue);
+        List<Object> params = sap.getParams();
+        for (int i = 0; i < params.size(); i++) {
+            ParameterBinders.bind(ps, i + 1, params.get(i));
+        }
+
+        if (fetchSize > 0) {
+            ps.setFetchSize(fetchSize);
+        }
+
+        if (maxRows > 0) {
+            ps.setMaxRows(maxRows);
+        }
+
+        if (queryTimeout > 0) {
+            ps.setQueryTimeout(queryTimeout);
         }
 
         return ps;
     }
 
     SqlAndParams createSqlAndParams() {
+        return createSqlAndParams(SqlTemplate.get(sql));
+    }
+
+    /**
+     * Returns the SQL of the given template, expanded for any collection
+     * parameters, and the values of its parameters taken from this creator.
+     * The SQL of this creator itself is ignored, so the template may be one
+     * compiled from another creator of the same shape.
+     *
+     * @throws IllegalArgumentException
+     *             if a parameter of the template has not been set.
+     */
+    SqlAndParams createSqlAndParams(SqlTemplate template) {
 
         //
-        // Replace all parameters with question marks, and build a list of
-        // parameter
-        // values in the same order.
+        // The template has already replaced all parameters with question
+        // marks, so we only need to build a list of parameter values in the
+        // same order. If a parameter is a collection, though, we need to
+        // build SQL with a question mark for each element.
         //
 
-        StringBuilder psSql = new StringBuilder();
-        List<Object> paramValues = new ArrayList<Object>();
+        String sql = template.getSql();
+
+        int count = template.getParamCount();
+        List<Object> paramValues = new ArrayList<Object>(count);
+        StringBuilder expandedSql = null;
+
+        for (int i = 0; i < count; i++) {
+
+            Object value = getParameterValue(template, i);
+
+            if (value instanceof Collection) {
+
+                if (expandedSql == null) {
+                    expandedSql = new StringBuilder(sql.length() + 32);
+                    for (int j = 0; j < i; j++) {
+                        expandedSql.append(template.getFragment(j)).append('?');
+                    }
+                }
+
+                expandedSql.append(template.getFragment(i));
+                appendCollection(expandedSql, paramValues, template.getParamName(i), (Collection<?>) value);
 
-        Matcher m = PARAM_PATTERN.matcher(sql);
-        int index = 0;
-        while (m.find(index)) {
-            psSql.append(sql.substring(index, m.start()));
-            String name = m.group(1);
-            index = m.end();
-            if (parameterMap.containsKey(name)) {
-                psSql.append("?");
-                paramValues.add(parameterMap.get(name));
             } else {
-                throw new IllegalArgumentException("Unknown parameter '" + name + "' at position " + m.start());
+
+                if (expandedSql != null) {
+                    expandedSql.append(template.getFragment(i)).append('?');
+                }
+
+                paramValues.add(value);
             }
         }
 
-        // Any stragglers?
-        psSql.append(sql.substring(index));
+        if (expandedSql != null) {
+            expandedSql.append(template.getFragment(count));
+            return new SqlAndParams(expandedSql.toString(), paramValues);
+        } else {
+            return new SqlAndParams(template.getPreparedStatementSql(), paramValues);
+        }
+    }
+
+    /**
+     * Appends a comma-separated list of question marks for the elements of a
+     * collection parameter, and adds the elements to a list of parameter
+     * values. The list is padded to the next bucket size by repeating the
+     * last element.
+     *
+     * @return The number of question marks appended.
+     * @throws IllegalArgumentException
+     *             if the collection is empty.
+     */
+    private static int appendCollection(StringBuilder sb, List<Object> paramValues, String name, Collection<?> values) {
+
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Parameter '" + name + "' is an empty collection");
+        }
+
+        int size = getBucketSize(values.size());
+
+        Object last = null;
+        for (Object value : values) {
+            paramValues.add(value);
+            last = value;
+        }
+
+        for (int i = values.size(); i < size; i++) {
+            paramValues.add(last);
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('?');
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns the number of placeholders to use for a collection parameter of
+     * the given size. Sizes are rounded up to the next power of two, so that a
+     * statement with an IN list has only a handful of distinct shapes, and the
+     * database and driver can re-use their cached plans. Sizes above
+     * {@link #MAX_BUCKET_SIZE} are rounded up to a multiple of it instead.
+     */
+    static int getBucketSize(int size) {
+        if (size > MAX_BUCKET_SIZE) {
+            return (size + MAX_BUCKET_SIZE - 1) / MAX_BUCKET_SIZE * MAX_BUCKET_SIZE;
+        }
+        int bucket = 1;
+        while (bucket < size) {
+            bucket <<= 1;
+        }
+        return bucket;
+    }
+
+    /**
+     * Returns the value of the parameter in the given slot of the template.
+     *
+     * @throws IllegalArgumentException
+     *             if the parameter has not been set.
+     */
+    private Object getParameterValue(SqlTemplate template, int slot) {
+
+        int index = template.getParamIndex(slot);
+        if (index >= 0 && index < indexedCount && indexedParams[index] != UNSET) {
+            return indexedParams[index];
+        }
+
+        String name = template.getParamName(slot);
+        Object value = parameterMap.get(name);
+        if (value == null && !parameterMap.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown parameter '" + name + "' at position " + template.getPosition(slot));
+        }
+        return value;
+    }
 
-        return new SqlAndParams(psSql.toString(), paramValues);
+    /**
+     * Returns the number of parameters that have been set.
+     */
+    int getParameterCount() {
+        int count = parameterMap.size();
+        for (int i = 0; i < indexedCount; i++) {
+            if (indexedParams[i] != UNSET) {
+                count++;
+            }
+        }
+        return count;
     }
 
     public Map<String, Object> getParameterMap() {
-        return Collections.unmodifiableMap(parameterMap);
+
+        if (indexedCount == 0) {
+            return Collections.unmodifiableMap(parameterMap);
+        }
+
+        Map<String, Object> result = new HashMap<String, Object>(parameterMap);
+        for (int i = 0; i < indexedCount; i++) {
+            if (indexedParams[i] != UNSET) {
+                result.put(getIndexedParameterName(i), indexedParams[i]);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
     }
 
     public String getSql() {
         return sql;
     }
 
+    /**
+     * Sets the number of rows the driver should fetch from the database at a
+     * time. Zero, the default, uses the driver's default.
+     *
+     * @see PreparedStatement#setFetchSize(int)
+     */
+    public ParameterizedPreparedStatementCreator setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows the statement returns. Zero, the
+     * default, means no limit.
+     *
+     * @see PreparedStatement#setMaxRows(int)
+     */
+    public ParameterizedPreparedStatementCreator setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
     public ParameterizedPreparedStatementCreator setParameter(String name, Object value) {
 
         if (NAME_PATTERN.matcher(name).matches()) {
             parameterMap.put(name, value);
+            if (indexedCount > 0) {
+                // The new value must not be hidden by an allocated one
+                int index = getParameterIndex(name);
+                if (index >= 0 && index < indexedCount) {
+                    indexedParams[index] = UNSET;
+                }
+            }
         } else {
             throw new IllegalArgumentException(
                     "'"
@@ -167,11 +556,91 @@ public class ParameterizedPreparedStatementCreator implements Cloneable, Prepare
         return this;
     }
 
+    /**
+     * Sets a parameter with an explicit SQL type. This is mostly useful for
+     * parameters that may be null, since binding a null value of unknown type
+     * may require the driver to look up the parameter metadata, which for
+     * some drivers means an extra round trip to the server.
+     *
+     * @param name
+     *            Name of the parameter.
+     * @param value
+     *            Value of the parameter. May be null.
+     * @param sqlType
+     *            SQL type of the parameter, from {@link java.sql.Types}.
+     */
+    public ParameterizedPreparedStatementCreator setParameter(String name, Object value, int sqlType) {
+        return setParameter(name, new SqlParameterValue(sqlType, value));
+    }
+
+    /**
+     * Sets the value of a parameter allocated by an {@link AbstractSqlCreator}.
+     * This is equivalent to calling {@link #setParameter(String, Object)} with
+     * the name "paramN", where N is the given index, but avoids building and
+     * hashing the name. Indexes are allocated consecutively, so the array
+     * holding the values never grows beyond the number of parameters
+     * allocated.
+     *
+     * @param index
+     *            Index of the parameter.
+     * @param value
+     *            Value of the parameter.
+     */
+    ParameterizedPreparedStatementCreator setIndexedParameter(int index, Object value) {
+
+        if (index < 0) {
+            throw new IllegalArgumentException("Invalid parameter index " + index);
+        }
+
+        if (!parameterMap.isEmpty()) {
+            parameterMap.remove(getIndexedParameterName(index));
+        }
+
+        if (index >= indexedParams.length) {
+            Object[] newParams = new Object[Math.max(index + 1, Math.max(8, indexedParams.length * 2))];
+            System.arraycopy(indexedParams, 0, newParams, 0, indexedCount);
+            indexedParams = newParams;
+        }
+
+        for (int i = indexedCount; i < index; i++) {
+            indexedParams[i] = UNSET;
+        }
+
+        indexedParams[index] = value;
+        indexedCount = Math.max(indexedCount, index + 1);
+
+        return this;
+    }
+
+    /**
+     * Sets the number of seconds the driver waits for the statement to
+     * execute. Zero, the default, means no limit.
+     *
+     * @see PreparedStatement#setQueryTimeout(int)
+     */
+    public ParameterizedPreparedStatementCreator setQueryTimeout(int queryTimeout) {
+        this.queryTimeout = queryTimeout;
+        return this;
+    }
+
     public ParameterizedPreparedStatementCreator setSql(String sql) {
         this.sql = sql;
         return this;
     }
 
+    private static void appendDebugValue(StringBuilder sb, Object param) {
+        if (param instanceof SqlParameterValue) {
+            param = ((SqlParameterValue) param).getValue();
+        }
+        if (param == null) {
+            sb.append("null");
+        } else if (param instanceof Number) {
+            sb.append(param);
+        } else {
+            sb.append(param.toString().replace("'", "''"));
+        }
+    }
+
     /**
      * Returns the SQL with parameter values interpolated. This SQL should be
      * only used for debugging and should NOT be executed by your application.
@@ -184,28 +653,28 @@ public class ParameterizedPreparedStatementCreator implements Cloneable, Prepare
 
         sb.append("-- ");
 
-        Matcher m = PARAM_PATTERN.matcher(sql);
-        int index = 0;
-        while (m.find(index)) {
-            sb.append(sql.substring(index, m.start()));
-            String name = m.group(1);
-            index = m.end();
-            if (parameterMap.containsKey(name)) {
-                Object param = parameterMap.get(name);
-                if (param == null) {
-                    sb.append("null");
-                } else if (param instanceof Number) {
-                    sb.append(param);
-                } else {
-                    sb.append(param.toString().replace("'", "''"));
+        SqlTemplate template = SqlTemplate.get(sql);
+
+        int count = template.getParamCount();
+        for (int i = 0; i < count; i++) {
+            sb.append(template.getFragment(i));
+            Object param = getParameterValue(template, i);
+            if (param instanceof Collection) {
+                boolean first = true;
+                for (Object element : (Collection<?>) param) {
+                    if (!first) {
+                        sb.append(", ");
+                    }
+                    appendDebugValue(sb, element);
+                    first = false;
                 }
             } else {
-                throw new IllegalArgumentException("Unknown parameter '" + name + "' at position " + m.start());
+                appendDebugValue(sb, param);
             }
         }
 
         // Any stragglers?
-        sb.append(sql.substring(index));
+        sb.append(template.getFragment(count));
 
         return sb.toString();
     }
@@ -9,7 +9,7 @@ import javax.sql.DataSource;
  *
  * @author John Krasnay <john@krasnay.ca>
  */
-public class PostgresqlDialect implements Dialect, Serializable {
+public class PostgresqlDialect implements ParameterLimitedDialect, Serializable {
 
     private static final long serialVersionUID = 1;
 
@@ -21,6 +21,11 @@ public class PostgresqlDialect implements Dialect, Serializable {
         return String.format("%s limit %d offset %d", sql, limit, offset);
     }
 
+    public int getMaxParameters() {
+        // The wire protocol uses a 16-bit parameter count
+        return 32767;
+    }
+
     @Override
     public Supplier<Integer> getSequence(DataSource dataSource, String sequenceName) {
         return new PostgresqlSequence(dataSource, sequenceName);
@@ -1,10 +1,12 @@
 package ca.krasnay.sqlbuilder;
 
+import java.util.List;
+
 import javax.sql.DataSource;
 
 import org.springframework.jdbc.core.JdbcTemplate;
 
-public class PostgresqlSequence implements Supplier<Integer> {
+public class PostgresqlSequence implements BulkSupplier<Integer> {
 
     private JdbcTemplate jdbcTemplate;
 
@@ -19,4 +21,8 @@ public class PostgresqlSequence implements Supplier<Integer> {
         return jdbcTemplate.queryForObject("select nextval(?)", Integer.class, sequenceName);
     }
 
+    public List<Integer> get(int count) {
+        return jdbcTemplate.queryForList("select nextval(?) from generate_series(1, ?)", Integer.class, sequenceName, count);
+    }
+
 }
@@ -1,5 +1,6 @@
 package ca.krasnay.sqlbuilder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -39,8 +40,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, bits);
+                param = creator.allocateParameter(bits);
             }
             public String toSql() {
                 return String.format("(%s & :%s) = :%s", expr, param, param);
@@ -75,8 +75,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, bits);
+                param = creator.allocateParameter(bits);
             }
             public String toSql() {
                 return String.format("(%s & :%s) > 0", expr, param);
@@ -96,8 +95,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
                 return String.format("%s = :%s", expr, param);
@@ -107,43 +105,23 @@ public final class Predicates {
 
 
     /**
-     * Adds an IN clause to a creator.
+     * Adds an IN clause to a creator. The values are bound as a single
+     * collection parameter, so the number of placeholders is rounded up as
+     * described in {@link ParameterizedPreparedStatementCreator}.
      *
      * @param expr
      *            SQL expression to be tested for inclusion.
      * @param values
-     *            Values for the IN clause.
+     *            Values for the IN clause. Must not be empty.
      */
     public static Predicate in(final String expr, final List<?> values) {
-
         return new Predicate() {
-
-            private String sql;
-
+            private String param;
             public void init(AbstractSqlCreator creator) {
-
-                StringBuilder sb = new StringBuilder();
-                sb.append(expr).append(" in (");
-
-                boolean first = true;
-                for (Object value : values) {
-                    String param = creator.allocateParameter();
-                    creator.setParameter(param, value);
-                    if (!first) {
-                        sb.append(", ");
-                    }
-                    sb.append(":").append(param);
-                    first = false;
-                }
-
-                sb.append(")");
-
-                sql = sb.toString();
-
+                param = creator.allocateParameter(new ArrayList<Object>(values));
             }
-
             public String toSql() {
-                return sql;
+                return String.format("%s in (:%s)", expr, param);
             }
         };
     }
@@ -233,8 +211,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
                 return String.format("%s <> :%s", expr, param);
@@ -310,8 +287,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
                 return String.format("%s > :%s", expr, param);
@@ -323,8 +299,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
                 return String.format("%s >= :%s", expr, param);
@@ -336,8 +311,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
                 return String.format("%s < :%s", expr, param);
@@ -349,8 +323,7 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
                 return String.format("%s <= :%s", expr, param);
@@ -362,11 +335,10 @@ public final class Predicates {
         return new Predicate() {
             private String param;
             public void init(AbstractSqlCreator creator) {
-                param = creator.allocateParameter();
-                creator.setParameter(param, value);
+                param = creator.allocateParameter(value);
             }
             public String toSql() {
-                return String.format("%s like ':%s'",expr, param);
+                return String.format("%s like :%s", expr, param);
             }
         };
     }
@@ -172,12 +172,36 @@ public class SelectCreator extends AbstractSqlCreator implements Cloneable {
         };
     }
 
+    @Override
+    public SelectCreator setFetchSize(int fetchSize) {
+        super.setFetchSize(fetchSize);
+        return this;
+    }
+
+    @Override
+    public SelectCreator setMaxRows(int maxRows) {
+        super.setMaxRows(maxRows);
+        return this;
+    }
+
     @Override
     public SelectCreator setParameter(String name, Object value) {
         super.setParameter(name, value);
         return this;
     }
 
+    @Override
+    public SelectCreator setParameter(String name, Object value, int sqlType) {
+        super.setParameter(name, value, sqlType);
+        return this;
+    }
+
+    @Override
+    public SelectCreator setQueryTimeout(int queryTimeout) {
+        super.setQueryTimeout(queryTimeout);
+        return this;
+    }
+
     public SubSelectCreator subSelectColumn(String alias) {
         SubSelectBuilder subSelectBuilder = new SubSelectBuilder(alias);
         builder.column(subSelectBuilder);
@@ -215,32 +239,28 @@ public class SelectCreator extends AbstractSqlCreator implements Cloneable {
 
     public SelectCreator whereEquals(String expr, Object value) {
 
-        String param = allocateParameter();
+        String param = allocateParameter(value);
 
         builder.where(expr + " = :" + param);
-        setParameter(param, value);
 
         return this;
     }
 
+    /**
+     * Adds an IN clause. The values are bound as a single collection
+     * parameter, so the number of placeholders is rounded up as described in
+     * {@link ParameterizedPreparedStatementCreator}.
+     *
+     * @param expr
+     *            SQL expression to be tested for inclusion.
+     * @param values
+     *            Values for the IN clause. Must not be empty.
+     */
     public SelectCreator whereIn(String expr, List<?> values) {
 
-        StringBuilder sb = new StringBuilder();
-        sb.append(expr).append(" in (");
-
-        boolean first = true;
-        for (Object value : values) {
-            String param = allocateParameter();
-            setParameter(param, value);
-            if (!first) {
-                sb.append(", ");
-            }
-            sb.append(":").append(param);
-            first = false;
-        }
+        String param = allocateParameter(new ArrayList<Object>(values));
 
-        sb.append(")");
-        builder.where(sb.toString());
+        builder.where(expr + " in (:" + param + ")");
 
         return this;
     }
@@ -0,0 +1,62 @@
+package ca.krasnay.sqlbuilder;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * Executes statements produced by the creators in this package. The methods
+ * mirror those of Spring's JdbcTemplate, so {@link JdbcTemplateExecutor}
+ * simply delegates to a template, while {@link DirectSqlExecutor} runs the
+ * statements with plain JDBC.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public interface SqlExecutor {
+
+    /**
+     * Executes a statement in batches, once for each of the given arguments.
+     *
+     * @param sql
+     *            SQL of the statement.
+     * @param batchArgs
+     *            Arguments of each execution.
+     * @param batchSize
+     *            Maximum number of executions sent to the database at once.
+     * @param pss
+     *            Sets the parameters of the statement for each argument.
+     * @return Update counts, as an array for each batch.
+     */
+    public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize, ParameterizedPreparedStatementSetter<T> pss)
+            throws DataAccessException;
+
+    /**
+     * Returns the translator used to convert SQLExceptions into
+     * DataAccessExceptions.
+     */
+    public SQLExceptionTranslator getExceptionTranslator();
+
+    /**
+     * Executes a query, passing its result set to an extractor.
+     */
+    public <T> T query(PreparedStatementCreator psc, ResultSetExtractor<T> rse) throws DataAccessException;
+
+    /**
+     * Executes a query, mapping each row with a row mapper.
+     */
+    public <T> List<T> query(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException;
+
+    /**
+     * Executes an insert, update, or delete statement.
+     *
+     * @return Number of rows affected.
+     */
+    public int update(PreparedStatementCreator psc) throws DataAccessException;
+
+}
@@ -0,0 +1,321 @@
+package ca.krasnay.sqlbuilder;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * SQL with named parameters, compiled into the form expected by JDBC. The
+ * template holds the SQL split around each parameter reference, so that the
+ * "?" SQL is computed only once and binding a statement only has to walk the
+ * array of parameter slots.
+ *
+ * <p>The SQL is scanned in a single pass. Parameter references are not
+ * recognized inside string literals, quoted identifiers, comments, or
+ * Postgres dollar-quoted strings, and Postgres <code>::</code> casts are not
+ * mistaken for parameters.
+ *
+ * <p>Templates are immutable and are cached by SQL text in a bounded,
+ * concurrent cache, so applications that repeatedly execute the same few
+ * statement shapes only pay the parsing cost once per shape.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+final class SqlTemplate {
+
+    /**
+     * Maximum number of templates to retain in the cache.
+     */
+    static final int MAX_CACHE_SIZE = 1000;
+
+    private static final ConcurrentMap<String, SqlTemplate> cache = new ConcurrentHashMap<String, SqlTemplate>();
+
+    /**
+     * Returns the template for the given SQL, compiling it if it is not yet
+     * in the cache.
+     *
+     * @param sql
+     *            SQL with parameters of the form ":name".
+     */
+    static SqlTemplate get(String sql) {
+
+        SqlTemplate template = cache.get(sql);
+
+        if (template == null) {
+
+            template = new SqlTemplate(sql);
+
+            if (cache.size() >= MAX_CACHE_SIZE) {
+                // Evict an arbitrary entry. Statements that are still in use
+                // are simply re-compiled the next time they are seen.
+                Iterator<String> iter = cache.keySet().iterator();
+                if (iter.hasNext()) {
+                    iter.next();
+                    iter.remove();
+                }
+            }
+
+            SqlTemplate existing = cache.putIfAbsent(sql, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * Returns the number of templates currently cached.
+     */
+    static int getCacheSize() {
+        return cache.size();
+    }
+
+    private final String sql;
+
+    private final String psSql;
+
+    /**
+     * SQL text surrounding the parameters. There is always one more fragment
+     * than there are parameter slots.
+     */
+    private final String[] fragments;
+
+    /**
+     * Name of the parameter in each slot, in order of appearance.
+     */
+    private final String[] paramNames;
+
+    /**
+     * Position in the original SQL of each parameter slot.
+     */
+    private final int[] positions;
+
+    /**
+     * For each slot, the index of the parameter if it is an indexed parameter
+     * such as "param3", or -1 otherwise.
+     */
+    private final int[] paramIndexes;
+
+    private SqlTemplate(String sql) {
+
+        this.sql = sql;
+
+        List<String> fragmentList = new ArrayList<String>();
+        List<String> nameList = new ArrayList<String>();
+        List<Integer> positionList = new ArrayList<Integer>();
+
+        StringBuilder psSql = new StringBuilder(sql.length());
+
+        int length = sql.length();
+        int fragmentStart = 0;
+        int i = 0;
+
+        while (i < length) {
+
+            char c = sql.charAt(i);
+
+            if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                i = skipLineComment(sql, i);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                i = skipBlockComment(sql, i);
+            } else if (c == '$') {
+                i = skipDollarQuoted(sql, i);
+            } else if (c == ':' && i + 1 < length && sql.charAt(i + 1) == ':') {
+                // Postgres-style cast, e.g. "x::text"
+                i += 2;
+            } else if (c == ':' && i + 1 < length && isNameStart(sql.charAt(i + 1))) {
+
+                int nameEnd = i + 2;
+                while (nameEnd < length && isNamePart(sql.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+
+                String fragment = sql.substring(fragmentStart, i);
+                fragmentList.add(fragment);
+                nameList.add(sql.substring(i + 1, nameEnd));
+                positionList.add(i);
+                psSql.append(fragment).append('?');
+
+                i = nameEnd;
+                fragmentStart = i;
+
+            } else {
+                i++;
+            }
+        }
+
+        String fragment = sql.substring(fragmentStart);
+        fragmentList.add(fragment);
+        psSql.append(fragment);
+
+        int count = nameList.size();
+
+        fragments = fragmentList.toArray(new String[count + 1]);
+        paramNames = nameList.toArray(new String[count]);
+        positions = new int[count];
+        paramIndexes = new int[count];
+        for (int slot = 0; slot < count; slot++) {
+            positions[slot] = positionList.get(slot);
+            paramIndexes[slot] = ParameterizedPreparedStatementCreator.getParameterIndex(paramNames[slot]);
+        }
+
+        this.psSql = psSql.toString();
+    }
+
+    private static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Skips a block comment, returning the index following it. Comments may
+     * be nested, as in Postgres.
+     */
+    private static int skipBlockComment(String sql, int start) {
+        int depth = 0;
+        int i = start;
+        int length = sql.length();
+        while (i < length) {
+            if (sql.startsWith("/*", i)) {
+                depth++;
+                i += 2;
+            } else if (sql.startsWith("*/", i)) {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Skips a Postgres dollar-quoted string such as <code>$$...$$</code> or
+     * <code>$body$...$body$</code>, returning the index following it. If the
+     * dollar sign at the given index does not start a dollar quote (for
+     * example, it is part of an identifier or a positional parameter), returns
+     * the index following the dollar sign.
+     */
+    private static int skipDollarQuoted(String sql, int start) {
+
+        if (start > 0) {
+            char prev = sql.charAt(start - 1);
+            if (isNamePart(prev) || prev == '$') {
+                return start + 1;
+            }
+        }
+
+        int length = sql.length();
+        int i = start + 1;
+
+        if (i < length && isNameStart(sql.charAt(i))) {
+            while (i < length && isNamePart(sql.charAt(i))) {
+                i++;
+            }
+        }
+
+        if (i >= length || sql.charAt(i) != '$') {
+            return start + 1;
+        }
+
+        String tag = sql.substring(start, i + 1);
+        int end = sql.indexOf(tag, i + 1);
+
+        return end < 0 ? length : end + tag.length();
+    }
+
+    /**
+     * Skips to the end of the line, returning the index of the character
+     * following the newline.
+     */
+    private static int skipLineComment(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    /**
+     * Skips a string literal or quoted identifier, returning the index
+     * following the closing quote. A doubled quote character is treated as an
+     * escaped quote.
+     */
+    private static int skipQuoted(String sql, int start, char quote) {
+        int length = sql.length();
+        int i = start + 1;
+        while (i < length) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the SQL text fragment preceding the given parameter slot. The
+     * fragment at index {@link #getParamCount()} is the text following the
+     * last parameter.
+     */
+    String getFragment(int slot) {
+        return fragments[slot];
+    }
+
+    /**
+     * Returns the number of parameter slots in the SQL. A parameter that is
+     * referenced more than once occupies one slot per reference.
+     */
+    int getParamCount() {
+        return paramNames.length;
+    }
+
+    /**
+     * Returns the index of the parameter in the given slot if it is an indexed
+     * parameter such as "param3", or -1 otherwise.
+     */
+    int getParamIndex(int slot) {
+        return paramIndexes[slot];
+    }
+
+    /**
+     * Returns the name of the parameter in the given slot.
+     */
+    String getParamName(int slot) {
+        return paramNames[slot];
+    }
+
+    /**
+     * Returns the position in the original SQL of the given parameter slot.
+     */
+    int getPosition(int slot) {
+        return positions[slot];
+    }
+
+    /**
+     * Returns the SQL with each parameter replaced by a question mark.
+     */
+    String getPreparedStatementSql() {
+        return psSql;
+    }
+
+    /**
+     * Returns the original SQL from which this template was compiled.
+     */
+    String getSql() {
+        return sql;
+    }
+
+}
@@ -107,10 +107,9 @@ public class UnionSelectCreator implements Serializable {
 
     public UnionSelectCreator whereEquals(String expr, Object value) {
 
-        String param = creator.allocateParameter();
+        String param = creator.allocateParameter(value);
 
         builder.where(expr + " = :" + param);
-        creator.setParameter(param, value);
 
         return this;
     }
@@ -40,12 +40,35 @@ public class UpdateCreator extends AbstractSqlCreator {
         return this;
     }
 
+    @Override
+    public UpdateCreator setParameter(String name, Object value, int sqlType) {
+        super.setParameter(name, value, sqlType);
+        return this;
+    }
+
     public UpdateCreator setValue(String column, Object value) {
         builder.set(column + " = :" + column);
         setParameter(column, value);
         return this;
     }
 
+    /**
+     * Sets a column value with an explicit SQL type. This allows null values
+     * to be bound without the driver having to look up the column type.
+     *
+     * @param column
+     *            Name of the column.
+     * @param value
+     *            Value of the column. May be null.
+     * @param sqlType
+     *            SQL type of the column, from {@link java.sql.Types}.
+     */
+    public UpdateCreator setValue(String column, Object value, int sqlType) {
+        builder.set(column + " = :" + column);
+        setParameter(column, value, sqlType);
+        return this;
+    }
+
     public UpdateCreator where(String expr) {
         builder.where(expr);
         return this;
@@ -59,10 +82,9 @@ public class UpdateCreator extends AbstractSqlCreator {
 
     public UpdateCreator whereEquals(String expr, Object value) {
 
-        String param = allocateParameter();
+        String param = allocateParameter(value);
 
         builder.where(expr + " = :" + param);
-        setParameter(param, value);
 
         return this;
     }
@@ -0,0 +1,52 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Gets thrown by {@link Mapping#updateAll(java.util.Collection)} when some of
+ * the entities could not be updated. Each such entity's ID is reported either
+ * as missing, if its row no longer exists, or as stale, if its row has been
+ * modified since the entity was read. All other entities have been updated.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class BulkUpdateException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private String table;
+
+    private List<Object> missingIds;
+
+    private List<Object> staleIds;
+
+    public BulkUpdateException(String table, List<Object> missingIds, List<Object> staleIds) {
+        super("Could not update " + (missingIds.size() + staleIds.size()) + " rows in table " + table
+                + (missingIds.isEmpty() ? "" : "; rows not found with ids " + missingIds)
+                + (staleIds.isEmpty() ? "" : "; rows modified by others with ids " + staleIds));
+        this.table = table;
+        this.missingIds = Collections.unmodifiableList(missingIds);
+        this.staleIds = Collections.unmodifiableList(staleIds);
+    }
+
+    /**
+     * Returns the IDs of the entities whose rows no longer exist.
+     */
+    public List<Object> getMissingIds() {
+        return missingIds;
+    }
+
+    /**
+     * Returns the IDs of the entities whose rows have been modified since the
+     * entities were read.
+     */
+    public List<Object> getStaleIds() {
+        return staleIds;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+}
@@ -3,7 +3,7 @@ package ca.krasnay.sqlbuilder.orm;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
-public final class ClassConverter implements Converter<Class<?>> {
+public final class ClassConverter implements IndexedConverter<Class<?>> {
 
     private static final ClassConverter INSTANCE = new ClassConverter();
 
@@ -22,9 +22,15 @@ public final class ClassConverter implements Converter<Class<?>> {
 
     @Override
     public Class<?> getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+        return toFieldValue(rs.getString(columnLabel));
+    }
 
-        String className = rs.getString(columnLabel);
+    @Override
+    public Class<?> getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getString(columnIndex));
+    }
 
+    private Class<?> toFieldValue(String className) {
         if (className == null) {
             return null;
         } else {
@@ -34,7 +40,6 @@ public final class ClassConverter implements Converter<Class<?>> {
                 throw new RuntimeException(e);
             }
         }
-
     }
 
 }
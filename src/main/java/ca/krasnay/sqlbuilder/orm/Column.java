@@ -1,5 +1,6 @@
 package ca.krasnay.sqlbuilder.orm;
 
+import org.springframework.jdbc.core.SqlTypeValue;
 
 /**
  * Maps a column in the database to a corresponding field in a Java class.
@@ -29,6 +30,8 @@ public class Column {
 
     private Converter<?> converter;
 
+    private int sqlType = SqlTypeValue.TYPE_UNKNOWN;
+
     public Column(String fieldName) {
         this(fieldName, toColumnName(fieldName));
     }
@@ -97,7 +100,26 @@ public class Column {
         return fieldName;
     }
 
+    /**
+     * Returns the SQL type of the column, from {@link java.sql.Types}, or
+     * {@link SqlTypeValue#TYPE_UNKNOWN} if the type is not known.
+     */
+    public int getSqlType() {
+        return sqlType;
+    }
+
     public boolean isReadOnly() {
         return columnExpr != null;
     }
+
+    /**
+     * Sets the SQL type of the column, from {@link java.sql.Types}. This is
+     * used when binding null values, so that the driver does not have to look
+     * up the type of the parameter. If not set, {@link Mapping} derives the
+     * type from the field type and converter when the column is added.
+     */
+    public Column setSqlType(int sqlType) {
+        this.sqlType = sqlType;
+        return this;
+    }
 }
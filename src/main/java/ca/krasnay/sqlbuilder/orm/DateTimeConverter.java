@@ -6,7 +6,7 @@ import java.sql.Timestamp;
 
 import org.joda.time.DateTime;
 
-public final class DateTimeConverter implements Converter<DateTime> {
+public final class DateTimeConverter implements IndexedConverter<DateTime> {
 
     private static final DateTimeConverter INSTANCE = new DateTimeConverter();
 
@@ -25,15 +25,20 @@ public final class DateTimeConverter implements Converter<DateTime> {
 
     @Override
     public DateTime getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+        return toFieldValue(rs.getTimestamp(columnLabel));
+    }
 
-        Timestamp timestamp = rs.getTimestamp(columnLabel);
+    @Override
+    public DateTime getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getTimestamp(columnIndex));
+    }
 
+    private DateTime toFieldValue(Timestamp timestamp) {
         if (timestamp == null) {
             return null;
         } else {
             return new DateTime(timestamp);
         }
-
     }
 
 }
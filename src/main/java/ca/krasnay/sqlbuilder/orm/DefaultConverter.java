@@ -10,7 +10,7 @@ import java.sql.SQLException;
  * @author Alex Rykov
  *
  */
-public class DefaultConverter implements Converter<Object> {
+public class DefaultConverter implements IndexedConverter<Object> {
 
     private static final DefaultConverter INSTANCE = new DefaultConverter();
 
@@ -25,7 +25,15 @@ public class DefaultConverter implements Converter<Object> {
 
     @Override
     public Object getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
-        Object value = rs.getObject(columnLabel);
+        return toFieldValue(rs.getObject(columnLabel));
+    }
+
+    @Override
+    public Object getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getObject(columnIndex));
+    }
+
+    private Object toFieldValue(Object value) throws SQLException {
         if (value instanceof Clob) {
             Clob clob = (Clob) value;
             return clob.getSubString(1, (int) clob.length());
@@ -0,0 +1,55 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a chunked bulk delete, returned by
+ * {@link Mapping#deleteByIds(java.util.Collection, int)} and
+ * {@link Mapping#deleteWhere(ca.krasnay.sqlbuilder.Predicate, int)}.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class DeleteResult {
+
+    private int rowCount;
+
+    private List<Long> chunkTimes = new ArrayList<Long>();
+
+    DeleteResult() {
+    }
+
+    void addChunk(int rows, long millis) {
+        rowCount += rows;
+        chunkTimes.add(millis);
+    }
+
+    /**
+     * Returns the number of chunks executed.
+     */
+    public int getChunkCount() {
+        return chunkTimes.size();
+    }
+
+    /**
+     * Returns the time taken by each chunk, in milliseconds, in the order in
+     * which the chunks were executed.
+     */
+    public List<Long> getChunkTimes() {
+        return Collections.unmodifiableList(chunkTimes);
+    }
+
+    /**
+     * Returns the total number of rows deleted.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Deleted " + rowCount + " rows in " + chunkTimes.size() + " chunks " + chunkTimes;
+    }
+
+}
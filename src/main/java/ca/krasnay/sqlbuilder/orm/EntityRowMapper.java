@@ -0,0 +1,108 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Row mapper that hydrates the entities of a {@link Mapping}. The converter
+ * and field accessor of each column are taken from the mapping's
+ * {@link MappingMetadata}, so mapping a row involves no reflective lookups.
+ * The columns must be the first columns of the result set, in the order given
+ * to the constructor, so that they can be read by index. If dirty checking is
+ * enabled, each entity is snapshotted once hydrated.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+final class EntityRowMapper<T> implements RowMapper<T> {
+
+    private final Mapping<T> mapping;
+
+    private final MappingMetadata<T> metadata;
+
+    private final String[] columnLabels;
+
+    private final Converter<?>[] converters;
+
+    /**
+     * Converter of each column if it can read by index, otherwise null.
+     */
+    private final IndexedConverter<?>[] indexedConverters;
+
+    private final FieldAccessor[] accessors;
+
+    /**
+     * Constructor.
+     *
+     * @param mapping
+     *            Mapping whose entities are created.
+     * @param columns
+     *            Columns to read from each row, in result set order.
+     * @param metadata
+     *            Metadata providing the accessor and converter of each column.
+     */
+    EntityRowMapper(Mapping<T> mapping, List<Column> columns, MappingMetadata<T> metadata) {
+
+        this.mapping = mapping;
+        this.metadata = metadata;
+        this.columnLabels = new String[columns.size()];
+        this.converters = new Converter<?>[columns.size()];
+        this.indexedConverters = new IndexedConverter<?>[columns.size()];
+        this.accessors = new FieldAccessor[columns.size()];
+
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            columnLabels[i] = column.getColumnName();
+            converters[i] = metadata.getConverter(column);
+            if (readsByIndex(converters[i])) {
+                indexedConverters[i] = (IndexedConverter<?>) converters[i];
+            }
+            accessors[i] = metadata.getAccessor(column);
+        }
+    }
+
+    /**
+     * Returns true if the converter can be read by index. A subclass of one
+     * of the built-in converters may override only the label variant of
+     * <code>getFieldValueFromResultSet</code>; reading such a converter by
+     * index would bypass the override, so it is read by label instead.
+     */
+    private static boolean readsByIndex(Converter<?> converter) {
+
+        if (!(converter instanceof IndexedConverter)) {
+            return false;
+        }
+
+        try {
+            Class<?> labelClass = converter.getClass()
+                    .getMethod("getFieldValueFromResultSet", ResultSet.class, String.class)
+                    .getDeclaringClass();
+            Class<?> indexClass = converter.getClass()
+                    .getMethod("getFieldValueFromResultSet", ResultSet.class, int.class)
+                    .getDeclaringClass();
+            return labelClass.isAssignableFrom(indexClass);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+
+        T result = mapping.createInstance();
+
+        for (int i = 0; i < accessors.length; i++) {
+            if (indexedConverters[i] != null) {
+                accessors[i].set(result, indexedConverters[i].getFieldValueFromResultSet(rs, i + 1));
+            } else {
+                accessors[i].set(result, converters[i].getFieldValueFromResultSet(rs, columnLabels[i]));
+            }
+        }
+
+        metadata.snapshot(result);
+
+        return result;
+    }
+
+}
@@ -0,0 +1,89 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Column values of entities as last read from or written to the database,
+ * used by a {@link Mapping} with dirty checking enabled to find the columns
+ * that have changed. Entities are held by weak references and compared by
+ * identity, so entity classes need not implement equals, and snapshots go away
+ * along with their entities.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+final class EntitySnapshots {
+
+    /**
+     * Weak reference to an entity, equal to any other reference to the same
+     * entity.
+     */
+    private static final class Key extends WeakReference<Object> {
+
+        private final int hash;
+
+        public Key(Object entity, ReferenceQueue<Object> queue) {
+            super(entity, queue);
+            this.hash = System.identityHashCode(entity);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Object entity = get();
+            return entity != null && entity == ((Key) obj).get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final Map<Key, Object[]> snapshots = new HashMap<Key, Object[]>();
+
+    private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+
+    /**
+     * Removes the snapshots of entities that have been garbage collected.
+     */
+    private void expunge() {
+        Reference<?> ref;
+        while ((ref = queue.poll()) != null) {
+            snapshots.remove(ref);
+        }
+    }
+
+    /**
+     * Returns the snapshot of an entity, or null if there is none.
+     */
+    public synchronized Object[] get(Object entity) {
+        expunge();
+        return snapshots.get(new Key(entity, null));
+    }
+
+    /**
+     * Records the column values of an entity, replacing any earlier snapshot.
+     */
+    public synchronized void put(Object entity, Object[] values) {
+        expunge();
+        snapshots.put(new Key(entity, queue), values);
+    }
+
+    /**
+     * Discards the snapshot of an entity, if any.
+     */
+    public synchronized void remove(Object entity) {
+        expunge();
+        snapshots.remove(new Key(entity, null));
+    }
+
+}
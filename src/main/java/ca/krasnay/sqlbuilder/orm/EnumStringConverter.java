@@ -11,7 +11,7 @@ import java.sql.SQLException;
  * @param <E>
  *            particular enum to/from which to convert
  */
-public class EnumStringConverter<E> implements Converter<E> {
+public class EnumStringConverter<E> implements IndexedConverter<E> {
 
 
     /**
@@ -43,10 +43,18 @@ public class EnumStringConverter<E> implements Converter<E> {
         return fieldValue.toString();
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public E getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
-        String s = rs.getString(columnLabel);
+        return toFieldValue(rs.getString(columnLabel));
+    }
+
+    @Override
+    public E getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getString(columnIndex));
+    }
+
+    @SuppressWarnings("unchecked")
+    private E toFieldValue(String s) {
         return s == null ? null : (E) Enum.valueOf(enumType, s);
     }
 
@@ -0,0 +1,160 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a field identified by a dot-separated path, such as
+ * "address.city". The fields along the path are resolved once, when the
+ * accessor is created, so each access is a direct walk along the chain.
+ * Accessors are obtained from {@link ReflectionUtils}, which caches them.
+ *
+ * <p>If a field on the path is not declared by the type of the field before
+ * it, it may be declared by a subclass, as when "address" is declared as an
+ * Address but holds a UsAddress with a "zip" field. The rest of the path is
+ * then resolved on each access against the runtime class of the intermediate
+ * object, using the accessors cached for that class.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+final class FieldAccessor {
+
+    private final String path;
+
+    private final String[] names;
+
+    /**
+     * Fields along the path that can be resolved from the declared types.
+     */
+    private final Field[] fields;
+
+    /**
+     * Remainder of the path after the resolved fields, which must be resolved
+     * against the runtime class of the intermediate object, or null if the
+     * whole path is resolved.
+     */
+    private final String tail;
+
+    FieldAccessor(Class<?> clazz, String path) {
+
+        this.path = path;
+        this.names = path.split("\\.");
+
+        List<Field> resolved = new ArrayList<Field>();
+        String tail = null;
+
+        Class<?> type = clazz;
+        for (int i = 0; i < names.length; i++) {
+            Field field = ReflectionUtils.findDeclaredFieldInHierarchy(type, names[i]);
+            if (field == null) {
+                if (i == 0 || !canBeSubclassed(type)) {
+                    throw new RuntimeException(new NoSuchFieldException(names[i]));
+                }
+                tail = path.substring(getParentPath(i - 1).length() + 1);
+                break;
+            }
+            resolved.add(field);
+            type = field.getType();
+        }
+
+        this.fields = resolved.toArray(new Field[resolved.size()]);
+        this.tail = tail;
+    }
+
+    private static boolean canBeSubclassed(Class<?> type) {
+        return !type.isPrimitive() && !type.isArray() && !Modifier.isFinal(type.getModifiers());
+    }
+
+    /**
+     * Returns the value of the field, or null if any of the intermediate
+     * objects on the path is null.
+     */
+    public Object get(Object object) {
+        try {
+            for (int i = 0; i < fields.length && object != null; i++) {
+                object = fields[i].get(object);
+            }
+            if (tail != null && object != null) {
+                return ReflectionUtils.getAccessor(object.getClass(), tail).get(object);
+            }
+            return object;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the field at the end of the path.
+     *
+     * @throws RuntimeException
+     *             if the field can only be resolved against the runtime class
+     *             of an intermediate object.
+     */
+    public Field getField() {
+        if (tail != null) {
+            throw new RuntimeException(new NoSuchFieldException(names[fields.length]));
+        }
+        return fields[fields.length - 1];
+    }
+
+    /**
+     * Returns the type of the field at the end of the path.
+     *
+     * @throws RuntimeException
+     *             if the field can only be resolved against the runtime class
+     *             of an intermediate object.
+     */
+    public Class<?> getType() {
+        return getField().getType();
+    }
+
+    /**
+     * Sets the value of the field.
+     *
+     * @throws IllegalStateException
+     *             if one of the intermediate objects on the path is null.
+     */
+    public void set(Object object, Object value) throws IllegalStateException {
+        try {
+            int parentCount = tail != null ? fields.length : fields.length - 1;
+            Object parent = object;
+            for (int i = 0; i < parentCount; i++) {
+                parent = fields[i].get(parent);
+                if (parent == null) {
+                    throw new IllegalStateException(String.format("Null value for %s while accessing %s on object %s",
+                            getParentPath(i), path, object));
+                }
+            }
+            if (tail != null) {
+                ReflectionUtils.getAccessor(parent.getClass(), tail).set(parent, value);
+            } else {
+                fields[fields.length - 1].set(parent, value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the path up to and including the given element.
+     */
+    private String getParentPath(int index) {
+        StringBuilder sb = new StringBuilder(names[0]);
+        for (int i = 1; i <= index; i++) {
+            sb.append('.').append(names[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+}
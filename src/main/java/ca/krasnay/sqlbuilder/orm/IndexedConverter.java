@@ -0,0 +1,28 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converter that can also read its value from a result set by column index.
+ * Reading by index avoids the driver looking up the column label for each
+ * value, so {@link Mapping} reads by index whenever a column's converter
+ * implements this interface. All the converters provided with this package
+ * implement it.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public interface IndexedConverter<T> extends Converter<T> {
+
+    /**
+     * Returns a Java value from a result set.
+     *
+     * @param rs
+     *            Result set from which to get the value.
+     * @param columnIndex
+     *            Index of the column with which to access the result set,
+     *            starting at 1.
+     */
+    public T getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException;
+
+}
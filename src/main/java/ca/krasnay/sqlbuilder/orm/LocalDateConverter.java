@@ -7,7 +7,7 @@ import java.sql.Timestamp;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
 
-public final class LocalDateConverter implements Converter<LocalDate> {
+public final class LocalDateConverter implements IndexedConverter<LocalDate> {
 
     private static final LocalDateConverter INSTANCE = new LocalDateConverter();
 
@@ -26,15 +26,20 @@ public final class LocalDateConverter implements Converter<LocalDate> {
 
     @Override
     public LocalDate getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+        return toFieldValue(rs.getTimestamp(columnLabel));
+    }
 
-        Timestamp timestamp = rs.getTimestamp(columnLabel);
+    @Override
+    public LocalDate getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getTimestamp(columnIndex));
+    }
 
+    private LocalDate toFieldValue(Timestamp timestamp) {
         if (timestamp == null) {
             return null;
         } else {
             return new DateTime(timestamp).toLocalDate();
         }
-
     }
 
 }
@@ -9,7 +9,7 @@ import java.util.Locale;
  *
  * @author <a href="mailto:john@krasnay.ca">John Krasnay</a>
  */
-public class LocaleConverter implements Converter<Locale> {
+public class LocaleConverter implements IndexedConverter<Locale> {
 
     private static LocaleConverter INSTANCE = new LocaleConverter();
 
@@ -28,9 +28,15 @@ public class LocaleConverter implements Converter<Locale> {
 
     @Override
     public Locale getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+        return toFieldValue(rs.getString(columnLabel));
+    }
 
-        String s = rs.getString(columnLabel);
+    @Override
+    public Locale getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getString(columnIndex));
+    }
 
+    private Locale toFieldValue(String s) {
         if (s == null) {
             return null;
         } else {
@@ -43,7 +49,6 @@ public class LocaleConverter implements Converter<Locale> {
                 return new Locale(parts[0], parts[1], parts[2]);
             }
         }
-
     }
 
 }
@@ -1,21 +1,50 @@
 package ca.krasnay.sqlbuilder.orm;
 
 import static ca.krasnay.sqlbuilder.Predicates.eq;
+import static ca.krasnay.sqlbuilder.Predicates.in;
 
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.springframework.dao.DataAccessException;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
-
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ObjectUtils;
+
+import ca.krasnay.sqlbuilder.BulkSupplier;
+import ca.krasnay.sqlbuilder.CompiledStatement;
+import ca.krasnay.sqlbuilder.Consumer;
 import ca.krasnay.sqlbuilder.DeleteCreator;
 import ca.krasnay.sqlbuilder.InsertCreator;
 import ca.krasnay.sqlbuilder.Predicate;
@@ -76,7 +105,7 @@ public class Mapping<T> {
         }
 
         public int delete() {
-            return new JdbcTemplate(ormConfig.getDataSource()).update(delete);
+            return ormConfig.getExecutor().update(delete);
         }
 
         public Delete where(String expr) {
@@ -104,6 +133,17 @@ public class Mapping<T> {
 
         private SelectCreator select;
 
+        private boolean columnsAdded;
+
+        /**
+         * Statement options. Null means the default from the OrmConfig.
+         */
+        private Integer fetchSize;
+
+        private Integer maxRows;
+
+        private Integer queryTimeout;
+
         private Query() {
             this.select = new SelectCreator().from(table + " " + alias);
         }
@@ -116,48 +156,56 @@ public class Mapping<T> {
             return where(expr);
         }
 
+        /**
+         * Adds the mapped columns to the select. This is done when the query
+         * is executed, after any joins have been added.
+         */
+        private void addColumns() {
+
+            if (columnsAdded) {
+                return;
+            }
+
+            columnsAdded = true;
+
+            addSelectedColumns(select);
+        }
+
         public Query forUpdate() {
             select.forUpdate();
             return this;
         }
 
-        public List<T> getResultList() {
-
-            select.column(alias + "." + idColumn.getColumnName());
-
-            if (versionColumn != null) {
-                select.column(alias + "." + versionColumn.getColumnName());
-            }
-
-            for (Column column : columns) {
-                if (column.isReadOnly()) {
-                    select.column(column.getColumnExpr() + " as " + column.getColumnName());
-                } else {
-                    select.column(alias + "." + column.getColumnName());
+        /**
+         * Passes each result of the query to a consumer, reading and mapping
+         * one row at a time. See {@link #stream()}.
+         */
+        public void forEach(Consumer<? super T> consumer) {
+            ResultStream<T> stream = stream();
+            try {
+                while (stream.hasNext()) {
+                    consumer.accept(stream.next());
                 }
+            } finally {
+                stream.close();
             }
+        }
 
-            return new JdbcTemplate(ormConfig.getDataSource()).query(select, new RowMapper<T>() {
-                @Override
-                public T mapRow(ResultSet rs, int row) throws SQLException {
-
-                    T result = createInstance();
-
-                    setFieldValueFromResultSet(result, rs, idColumn);
-
-                    if (versionColumn != null) {
-                        setFieldValueFromResultSet(result, rs, versionColumn);
-                    }
-
-                    for (Column column : columns) {
-                        setFieldValueFromResultSet(result, rs, column);
-                    }
+        public List<T> getResultList() {
+            prepare();
+            return ormConfig.getExecutor().query(select, getRowMapper());
+        }
 
-                    return result;
-                }
+        /**
+         * Returns up to two results of the query. The statement's max rows is
+         * set to two, and reading stops after the second row, so an overly
+         * broad query is detected without reading its whole result.
+         */
+        private List<T> getFirstTwoResults() {
 
-            });
+            prepare();
 
+            return queryFirstTwoResults(select);
         }
 
         /**
@@ -169,14 +217,11 @@ public class Mapping<T> {
          *             if the query returned more than one row
          */
         public T getSingleResult() throws RowNotFoundException, TooManyRowsException {
-            List<T> results = getResultList();
-            if (results.size() == 1) {
-                return results.get(0);
-            } else if (results.size() == 0) {
+            T result = getSingleResultOrNull();
+            if (result == null) {
                 throw new RowNotFoundException(select);
-            } else {
-                throw new TooManyRowsException(results.size(), select);
             }
+            return result;
         }
 
         /**
@@ -187,13 +232,23 @@ public class Mapping<T> {
          *             if the query returned more than one row
          */
         public T getSingleResultOrNull() throws TooManyRowsException {
-            List<T> results = getResultList();
+            List<T> results = getFirstTwoResults();
             if (results.size() == 1) {
                 return results.get(0);
             } else if (results.size() == 0) {
                 return null;
             } else {
-                throw new TooManyRowsException(results.size(), select);
+                throw new TooManyRowsException(select, new Supplier<Integer>() {
+                    public Integer get() {
+                        return ormConfig.getExecutor().query(select.count(ormConfig.getDialect()), new ResultSetExtractor<Integer>() {
+                            @Override
+                            public Integer extractData(ResultSet rs) throws SQLException, DataAccessException {
+                                rs.next();
+                                return rs.getInt(1);
+                            }
+                        });
+                    }
+                });
             }
         }
 
@@ -227,6 +282,60 @@ public class Mapping<T> {
             return this;
         }
 
+        /**
+         * Prepares the select for execution, adding the mapped columns and
+         * applying the statement options.
+         */
+        private void prepare() {
+
+            addColumns();
+
+            select.setFetchSize(fetchSize != null ? fetchSize : ormConfig.getFetchSize());
+            select.setMaxRows(maxRows != null ? maxRows : ormConfig.getMaxRows());
+            select.setQueryTimeout(queryTimeout != null ? queryTimeout : ormConfig.getQueryTimeout());
+        }
+
+        /**
+         * Sets the number of rows fetched from the database at a time,
+         * overriding the default from the OrmConfig.
+         */
+        public Query setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of rows returned by the query, overriding
+         * the default from the OrmConfig.
+         */
+        public Query setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds to wait for the query to execute,
+         * overriding the default from the OrmConfig.
+         */
+        public Query setQueryTimeout(int queryTimeout) {
+            this.queryTimeout = queryTimeout;
+            return this;
+        }
+
+        /**
+         * Returns an iterator over the results of the query that reads and
+         * maps one row at a time, so that the full result is never held in
+         * memory. The caller must close the stream if it does not read all
+         * the rows. See {@link ResultStream}.
+         */
+        public ResultStream<T> stream() {
+            prepare();
+            if ((fetchSize != null ? fetchSize : ormConfig.getFetchSize()) == 0) {
+                select.setFetchSize(DEFAULT_STREAM_FETCH_SIZE);
+            }
+            return new ResultStream<T>(ormConfig.getDataSource(), ormConfig.getExecutor().getExceptionTranslator(), select, getRowMapper());
+        }
+
         public Query where(Predicate predicate) {
             select.where(predicate);
             return this;
@@ -246,6 +355,31 @@ public class Mapping<T> {
 
     public static final long NULL_ID = 0;
 
+    /**
+     * Number of rows sent to the database in each JDBC batch by the bulk
+     * operations such as {@link #insertAll(Collection)}.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Maximum number of IDs in the IN list of a bulk query. This is a power
+     * of two, since IN lists are padded to the next power of two.
+     */
+    private static final int MAX_IN_LIST_SIZE = 1024;
+
+    /**
+     * Number of rows fetched at a time when streaming query results, if no
+     * fetch size has been set.
+     */
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Maximum number of partial update statements cached per mapping when
+     * dirty checking is enabled. Statements for further combinations of
+     * changed columns are compiled each time.
+     */
+    private static final int MAX_PARTIAL_UPDATE_STATEMENTS = 64;
+
     private OrmConfig ormConfig;
 
     private Class<T> clazz;
@@ -258,9 +392,24 @@ public class Mapping<T> {
 
     private Column versionColumn;
 
+    private String sequenceName;
+
     private List<Column> columns = new ArrayList<Column>();
 
-    private List<String> ignoredFields = new ArrayList<String>();
+    private Set<String> ignoredFields = new HashSet<String>();
+
+    /**
+     * Metadata for the current columns, created when first needed.
+     */
+    private volatile MappingMetadata<T> metadata;
+
+    /**
+     * True once {@link #freeze()} has been called, after which the mapping
+     * can no longer be changed.
+     */
+    private volatile boolean frozen;
+
+    private boolean dirtyChecking;
 
     public Mapping(OrmConfig ormConfig, Class<T> clazz, String table) {
         this.ormConfig = ormConfig;
@@ -269,7 +418,12 @@ public class Mapping<T> {
     }
 
     public Mapping<T> addColumn(Column column) {
+        checkNotFrozen();
+        if (!column.isReadOnly() && column.getSqlType() == SqlTypeValue.TYPE_UNKNOWN) {
+            column.setSqlType(resolveSqlType(column));
+        }
         columns.add(column);
+        metadata = null;
         return this;
     }
 
@@ -303,9 +457,14 @@ public class Mapping<T> {
             throw new RuntimeException("Map ID column before adding class fields");
         }
 
+        Set<String> mappedFields = new HashSet<String>();
+        for (Column column : getSelectedColumns()) {
+            mappedFields.add(column.getFieldName());
+        }
+
         for (Field f : ReflectionUtils.getDeclaredFieldsInHierarchy(clazz)) {
             if (!Modifier.isStatic(f.getModifiers())
-                    && !isFieldMapped(f.getName())
+                    && !mappedFields.contains(f.getName())
                     && !ignoredFields.contains(f.getName())) {
                 addColumn(f.getName());
             }
@@ -314,6 +473,53 @@ public class Mapping<T> {
         return this;
     }
 
+    /**
+     * Assigns primary keys from the mapping's sequence to those entities that
+     * don't yet have one. All the keys are allocated at once if the sequence
+     * is a {@link BulkSupplier}.
+     */
+    private void assignPrimaryKeys(Collection<T> entities) {
+
+        List<T> unassigned = new ArrayList<T>();
+        for (T entity : entities) {
+            if (!hasPrimaryKey(entity)) {
+                unassigned.add(entity);
+            }
+        }
+
+        if (unassigned.isEmpty()) {
+            return;
+        }
+
+        if (sequenceName == null) {
+            throw new RuntimeException(String.format("Tried to insert entities of type %s with null or zero primary key, but the mapping has no sequence",
+                    clazz.getSimpleName()));
+        }
+
+        Supplier<Integer> sequence = ormConfig.getSequence(sequenceName);
+
+        List<Integer> ids;
+        if (sequence instanceof BulkSupplier) {
+            ids = ((BulkSupplier<Integer>) sequence).get(unassigned.size());
+        } else {
+            ids = new ArrayList<Integer>(unassigned.size());
+            for (int i = 0; i < unassigned.size(); i++) {
+                ids.add(sequence.get());
+            }
+        }
+
+        FieldAccessor idAccessor = getMetadata().getIdAccessor();
+        Class<?> idType = idAccessor.getType();
+
+        for (int i = 0; i < unassigned.size(); i++) {
+            Object id = ids.get(i);
+            if (idType == Long.class) {
+                id = Long.valueOf(ids.get(i));
+            }
+            idAccessor.set(unassigned.get(i), id);
+        }
+    }
+
     /**
      * Creates a Delete object. You can add criteria to the Delete object,
      * finally calling the Delete
@@ -328,23 +534,7 @@ public class Mapping<T> {
      * instances when returning query results.
      */
     protected T createInstance() {
-        try {
-            Constructor<T> ctor = clazz.getDeclaredConstructor();
-            ctor.setAccessible(true);
-            return ctor.newInstance();
-        } catch (InstantiationException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        } catch (SecurityException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        } catch (InvocationTargetException e) {
-            throw new RuntimeException(e);
-        }
+        return getMetadata().newInstance();
     }
 
     /**
@@ -354,6 +544,71 @@ public class Mapping<T> {
         return new Query().where(predicate);
     }
 
+    /**
+     * Deletes the rows with the given primary keys in chunks, each chunk
+     * committed in its own transaction. IDs with no matching row are ignored.
+     * Since each chunk is committed before the next begins, an error part way
+     * through leaves the earlier chunks deleted.
+     *
+     * @param ids
+     *            Primary keys of the rows to delete.
+     * @param chunkSize
+     *            Maximum number of rows to delete in each chunk.
+     */
+    public DeleteResult deleteByIds(Collection<?> ids, int chunkSize) {
+
+        DeleteResult result = new DeleteResult();
+
+        for (List<Object> chunk : split(ids, chunkSize)) {
+            executeChunk(new DeleteCreator(table).where(in(idColumn.getColumnName(), chunk)), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Deletes the rows matching a predicate in chunks, each chunk committed in
+     * its own transaction. This is suitable for purging large numbers of rows
+     * without holding locks on all of them at once. The predicate may refer to
+     * columns of the table using the mapping's alias. Since each chunk is
+     * committed before the next begins, an error part way through leaves the
+     * earlier chunks deleted.
+     *
+     * @param predicate
+     *            Predicate selecting the rows to delete.
+     * @param chunkSize
+     *            Maximum number of rows to delete in each chunk.
+     */
+    public DeleteResult deleteWhere(Predicate predicate, int chunkSize) {
+
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+
+        DeleteCreator delete = new DeleteCreator(table);
+        predicate.init(delete);
+
+        String select = String.format("select %s.%s from %s %s where %s",
+                alias, idColumn.getColumnName(), table, alias, predicate.toSql());
+
+        delete.where(idColumn.getColumnName() + " in (" + ormConfig.getDialect().createPageSelect(select, chunkSize, 0) + ")");
+
+        DeleteResult result = new DeleteResult();
+
+        int rows;
+        do {
+            rows = executeChunk(delete, result);
+        } while (rows == chunkSize);
+
+        return result;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("Mapping for table " + table + " is frozen and can no longer be changed");
+        }
+    }
+
     /**
      * Deletes an entity by its primary key.
      *
@@ -362,7 +617,7 @@ public class Mapping<T> {
      */
     public void deleteById(Object id) {
 
-        int count = beginDelete().whereEquals(idColumn.getColumnName(), id).delete();
+        int count = ormConfig.getExecutor().update(bind(getMetadata().getDeleteByIdStatement(), id));
 
         if (count == 0) {
             throw new RowNotFoundException(table, id);
@@ -378,7 +633,11 @@ public class Mapping<T> {
      *             If more that one object was returned for the given ID.
      */
     public T findById(Object id) throws RowNotFoundException, TooManyRowsException {
-        return findWhere(eq(idColumn.getColumnName(), id)).getSingleResult();
+        T result = findByIdOrNull(id);
+        if (result == null) {
+            throw new RowNotFoundException(table, id);
+        }
+        return result;
     }
 
     /**
@@ -395,7 +654,171 @@ public class Mapping<T> {
      *             If more that one object was returned for the given ID.
      */
     public T findByIdOrNull(Object id) throws TooManyRowsException {
-        return findWhere(eq(idColumn.getColumnName(), id)).getSingleResultOrNull();
+
+        List<T> results = queryFirstTwoResults(bind(getMetadata().getFindByIdStatement(), id));
+
+        if (results.size() > 1) {
+            // Rare enough to re-run as a query, which knows how to report it
+            return findWhere(eq(idColumn.getColumnName(), id)).getSingleResultOrNull();
+        }
+
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    /**
+     * Executes one chunk of a bulk delete in a new transaction, recording its
+     * row count and time in the result.
+     */
+    private int executeChunk(final DeleteCreator delete, DeleteResult result) {
+
+        TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(ormConfig.getDataSource()));
+        tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        long start = System.currentTimeMillis();
+
+        int rows = tt.execute(new TransactionCallback<Integer>() {
+            public Integer doInTransaction(TransactionStatus status) {
+                return ormConfig.getExecutor().update(delete);
+            }
+        });
+
+        result.addChunk(rows, System.currentTimeMillis() - start);
+
+        return rows;
+    }
+
+    /**
+     * Finds the entities with the given primary keys. IDs for which no entity
+     * was found are simply absent from the returned map.
+     *
+     * @param ids
+     *            Primary keys of the entities to find.
+     * @return Map of the entities found, keyed by primary key.
+     */
+    public Map<Object, T> findByIds(Collection<?> ids) {
+        return findByIds(ids, null);
+    }
+
+    /**
+     * Finds the entities with the given primary keys, running the queries for
+     * large numbers of IDs concurrently. Each query is limited to a number of
+     * IDs that fits within the bind limit given by
+     * {@link OrmConfig#getMaxParameters()}. The default maximum number of rows
+     * of the OrmConfig does not apply to these queries.
+     *
+     * <p>Note that when an executor is used, the queries run on its threads and
+     * therefore outside of any transaction of the calling thread.
+     *
+     * @param ids
+     *            Primary keys of the entities to find.
+     * @param executor
+     *            Executor on which to run the queries, or null to run them on
+     *            the calling thread.
+     * @return Map of the entities found, keyed by primary key.
+     */
+    public Map<Object, T> findByIds(Collection<?> ids, ExecutorService executor) {
+
+        List<List<Object>> chunks = split(ids, MAX_IN_LIST_SIZE);
+        List<List<T>> results = new ArrayList<List<T>>();
+
+        if (executor == null || chunks.size() < 2) {
+
+            for (List<Object> chunk : chunks) {
+                results.add(new Query().where(in(idColumn.getColumnName(), chunk)).setMaxRows(0).getResultList());
+            }
+
+        } else {
+
+            List<Future<List<T>>> futures = new ArrayList<Future<List<T>>>();
+
+            for (final List<Object> chunk : chunks) {
+                futures.add(executor.submit(new Callable<List<T>>() {
+                    public List<T> call() {
+                        return new Query().where(in(idColumn.getColumnName(), chunk)).setMaxRows(0).getResultList();
+                    }
+                }));
+            }
+
+            try {
+                for (Future<List<T>> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else {
+                    throw new RuntimeException(e.getCause());
+                }
+            } finally {
+                for (Future<List<T>> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        Map<Object, T> map = new LinkedHashMap<Object, T>();
+        for (List<T> result : results) {
+            for (T entity : result) {
+                map.put(getPrimaryKey(entity), entity);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Validates the mapping and resolves its metadata and statements, after
+     * which the mapping can no longer be changed. Any attempt to change a
+     * frozen mapping throws an {@link IllegalStateException}. A frozen mapping
+     * may be shared by any number of threads, provided it is safely published
+     * to them, e.g. via a final field.
+     *
+     * @throws IllegalStateException
+     *             If the mapping has no ID column, or if a column is mapped
+     *             more than once.
+     * @throws RuntimeException
+     *             If a mapped field does not exist in the entity class.
+     */
+    public Mapping<T> freeze() {
+
+        if (frozen) {
+            return this;
+        }
+
+        if (idColumn == null) {
+            throw new IllegalStateException("Mapping for table " + table + " has no ID column");
+        }
+
+        Set<String> columnNames = new HashSet<String>();
+        for (Column column : getSelectedColumns()) {
+            if (!columnNames.add(column.getColumnName())) {
+                throw new IllegalStateException(String.format("Column %s is mapped more than once in table %s",
+                        column.getColumnName(), table));
+            }
+        }
+
+        getMetadata();
+
+        frozen = true;
+
+        return this;
+    }
+
+    /**
+     * Returns the positions of the writable columns whose values differ from
+     * their snapshot.
+     */
+    private BitSet getChangedColumns(Object[] snapshot, Object[] values) {
+        BitSet changed = new BitSet(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (!ObjectUtils.nullSafeEquals(snapshot[i], values[i])) {
+                changed.set(i);
+            }
+        }
+        return changed;
     }
 
     private Converter<?> getConverter(Column column) {
@@ -407,15 +830,303 @@ public class Mapping<T> {
         }
     }
 
+    /**
+     * Returns the metadata for the mapping's current columns, creating it if
+     * necessary.
+     */
+    MappingMetadata<T> getMetadata() {
+
+        MappingMetadata<T> metadata = this.metadata;
+
+        if (metadata == null) {
+
+            List<Column> selectedColumns = getSelectedColumns();
+
+            List<Converter<?>> converters = new ArrayList<Converter<?>>();
+            for (Column column : selectedColumns) {
+                converters.add(getConverter(column));
+            }
+
+            List<Column> writableColumns = new ArrayList<Column>();
+            for (Column column : columns) {
+                if (!column.isReadOnly()) {
+                    writableColumns.add(column);
+                }
+            }
+
+            metadata = new MappingMetadata<T>(this, clazz, idColumn, versionColumn, selectedColumns, converters, writableColumns,
+                    compileFindById(), compileInsert(writableColumns), compileUpdate(writableColumns), compileDeleteById(),
+                    dirtyChecking);
+            this.metadata = metadata;
+        }
+
+        return metadata;
+    }
+
+    private EntityRowMapper<T> getRowMapper() {
+        return getMetadata().getRowMapper();
+    }
+
+    /**
+     * Adds the selected columns to a select. The row mapper reads these
+     * columns by position.
+     */
+    private void addSelectedColumns(SelectCreator select) {
+        for (Column column : getSelectedColumns()) {
+            if (column.isReadOnly()) {
+                select.column(column.getColumnExpr() + " as " + column.getColumnName());
+            } else {
+                select.column(alias + "." + column.getColumnName());
+            }
+        }
+    }
+
+    /**
+     * Binds one of the mapping's compiled statements. The fetch size, max rows
+     * and query timeout of the OrmConfig are read when the statement is
+     * executed rather than compiled into it, since the compiled statements
+     * outlive changes to the OrmConfig.
+     */
+    private PreparedStatementCreator bind(CompiledStatement statement, Object... args) {
+
+        final PreparedStatementCreator psc = statement.bind(args);
+
+        return new PreparedStatementCreator() {
+            public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+
+                PreparedStatement ps = psc.createPreparedStatement(con);
+
+                if (ormConfig.getFetchSize() > 0) {
+                    ps.setFetchSize(ormConfig.getFetchSize());
+                }
+
+                if (ormConfig.getMaxRows() > 0) {
+                    ps.setMaxRows(ormConfig.getMaxRows());
+                }
+
+                if (ormConfig.getQueryTimeout() > 0) {
+                    ps.setQueryTimeout(ormConfig.getQueryTimeout());
+                }
+
+                return ps;
+            }
+        };
+    }
+
+    /**
+     * Compiles the statement that deletes a row by ID. Its one argument is the
+     * ID.
+     */
+    private CompiledStatement compileDeleteById() {
+        return new DeleteCreator(table)
+        .where(idColumn.getColumnName() + " = :id")
+        .compile("id");
+    }
+
+    /**
+     * Compiles the statement that selects a row by ID. Its one argument is the
+     * ID.
+     */
+    private CompiledStatement compileFindById() {
+        SelectCreator select = new SelectCreator().from(table + " " + alias);
+        addSelectedColumns(select);
+        return select
+                .where(alias + "." + idColumn.getColumnName() + " = :id")
+                .compile("id");
+    }
+
+    /**
+     * Compiles the insert statement. Its arguments are the ID followed by the
+     * writable columns. See {@link #getInsertArguments(Object)}.
+     */
+    private CompiledStatement compileInsert(List<Column> writableColumns) {
+
+        InsertCreator insert = new InsertCreator(table);
+        List<String> argumentNames = new ArrayList<String>();
+
+        insert.setValue(idColumn.getColumnName(), null);
+        argumentNames.add(idColumn.getColumnName());
+
+        if (versionColumn != null) {
+            insert.setValue(versionColumn.getColumnName(), 0);
+        }
+
+        for (Column column : writableColumns) {
+            insert.setValue(column.getColumnName(), null);
+            argumentNames.add(column.getColumnName());
+        }
+
+        return insert.compile(argumentNames.toArray(new String[argumentNames.size()]));
+    }
+
+    /**
+     * Compiles the update statement. Its arguments are the writable columns,
+     * followed by the ID and the current version, if any. See
+     * {@link #getUpdateArguments(Object)}.
+     */
+    private CompiledStatement compileUpdate(List<Column> writableColumns) {
+
+        UpdateCreator update = new UpdateCreator(table);
+        List<String> argumentNames = new ArrayList<String>();
+
+        if (versionColumn != null) {
+            update.set(versionColumn.getColumnName() + " = " + versionColumn.getColumnName() + " + 1");
+        }
+
+        for (Column column : writableColumns) {
+            update.setValue(column.getColumnName(), null);
+            argumentNames.add(column.getColumnName());
+        }
+
+        update.where(idColumn.getColumnName() + " = :whereId");
+        argumentNames.add("whereId");
+
+        if (versionColumn != null) {
+            update.where(versionColumn.getColumnName() + " = :whereVersion");
+            argumentNames.add("whereVersion");
+        }
+
+        return update.compile(argumentNames.toArray(new String[argumentNames.size()]));
+    }
+
+    /**
+     * Returns the arguments of the insert statement for an entity.
+     */
+    private Object[] getInsertArguments(T entity) {
+
+        MappingMetadata<T> metadata = getMetadata();
+
+        Object[] args = new Object[metadata.getWritableColumnCount() + 1];
+        args[0] = metadata.getIdAccessor().get(entity);
+        for (int i = 0; i < metadata.getWritableColumnCount(); i++) {
+            args[i + 1] = new SqlParameterValue(metadata.getWritableColumn(i).getSqlType(), metadata.getWritableValue(entity, i));
+        }
+
+        return args;
+    }
+
+    /**
+     * Returns the arguments of the update statement for an entity.
+     */
+    private Object[] getUpdateArguments(T entity) {
+
+        MappingMetadata<T> metadata = getMetadata();
+        int count = metadata.getWritableColumnCount();
+
+        Object[] args = new Object[count + (versionColumn != null ? 2 : 1)];
+        for (int i = 0; i < count; i++) {
+            args[i] = new SqlParameterValue(metadata.getWritableColumn(i).getSqlType(), metadata.getWritableValue(entity, i));
+        }
+        args[count] = metadata.getIdAccessor().get(entity);
+        if (versionColumn != null) {
+            args[count + 1] = getVersion(entity);
+        }
+
+        return args;
+    }
+
+    /**
+     * Returns the arguments of a partial update statement for an entity.
+     *
+     * @param values
+     *            Values of all writable columns for the entity.
+     * @param columns
+     *            Positions of the writable columns being updated.
+     */
+    private Object[] getPartialUpdateArguments(T entity, Object[] values, BitSet columns) {
+
+        MappingMetadata<T> metadata = getMetadata();
+        int count = columns.cardinality();
+
+        Object[] args = new Object[count + (versionColumn != null ? 2 : 1)];
+        int i = 0;
+        for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+            args[i++] = new SqlParameterValue(metadata.getWritableColumn(col).getSqlType(), values[col]);
+        }
+        args[count] = metadata.getIdAccessor().get(entity);
+        if (versionColumn != null) {
+            args[count + 1] = getVersion(entity);
+        }
+
+        return args;
+    }
+
+    /**
+     * Returns the update statement that sets only the writable columns at the
+     * given positions, compiling it if necessary.
+     */
+    private CompiledStatement getPartialUpdateStatement(MappingMetadata<T> metadata, BitSet columns) {
+
+        CompiledStatement statement = metadata.getPartialUpdateStatement(columns);
+
+        if (statement == null) {
+
+            List<Column> updateColumns = new ArrayList<Column>(columns.cardinality());
+            for (int col = columns.nextSetBit(0); col >= 0; col = columns.nextSetBit(col + 1)) {
+                updateColumns.add(metadata.getWritableColumn(col));
+            }
+
+            statement = compileUpdate(updateColumns);
+
+            if (metadata.getPartialUpdateStatementCount() < MAX_PARTIAL_UPDATE_STATEMENTS) {
+                metadata.putPartialUpdateStatement(columns, statement);
+            }
+        }
+
+        return statement;
+    }
+
+    /**
+     * Executes a query, returning at most its first two results. The
+     * statement's max rows is set to two, and reading stops after the second
+     * row, so an overly broad query is detected without reading its whole
+     * result.
+     */
+    private List<T> queryFirstTwoResults(final PreparedStatementCreator psc) {
+
+        return ormConfig.getExecutor().query(new PreparedStatementCreator() {
+            public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+                PreparedStatement ps = psc.createPreparedStatement(con);
+                ps.setMaxRows(2);
+                return ps;
+            }
+        }, new ResultSetExtractor<List<T>>() {
+            @Override
+            public List<T> extractData(ResultSet rs) throws SQLException, DataAccessException {
+                List<T> results = new ArrayList<T>(2);
+                while (results.size() < 2 && rs.next()) {
+                    results.add(getRowMapper().mapRow(rs, results.size()));
+                }
+                return results;
+            }
+        });
+    }
+
+    /**
+     * Returns the columns selected by queries, in the order in which they
+     * appear in the select list: the ID, the version if any, and then the
+     * other columns.
+     */
+    private List<Column> getSelectedColumns() {
+        List<Column> selected = new ArrayList<Column>();
+        selected.add(idColumn);
+        if (versionColumn != null) {
+            selected.add(versionColumn);
+        }
+        selected.addAll(columns);
+        return selected;
+    }
+
     public Column getIdColumn() {
         return idColumn;
     }
 
     @SuppressWarnings("unchecked")
     private Object getFieldValueAsColumn(T entity, Column column) {
-        Object fieldValue = ReflectionUtils.getFieldValueWithPath(entity, column.getFieldName());
+        MappingMetadata<T> metadata = getMetadata();
+        Object fieldValue = metadata.getAccessor(column).get(entity);
         @SuppressWarnings("rawtypes")
-        Converter converter = getConverter(column);
+        Converter converter = metadata.getConverter(column);
         return converter.convertFieldValueToColumn(fieldValue);
     }
 
@@ -423,7 +1134,7 @@ public class Mapping<T> {
      * Returns the primary key value of the entity.
      */
     public Object getPrimaryKey(T entity) {
-        return ReflectionUtils.getFieldValue(entity, idColumn.getFieldName());
+        return getMetadata().getIdAccessor().get(entity);
     }
 
     public String getTable() {
@@ -431,7 +1142,7 @@ public class Mapping<T> {
     }
 
     private int getVersion(T entity) {
-        Object value = ReflectionUtils.getFieldValue(entity, versionColumn.getFieldName());
+        Object value = getMetadata().getVersionAccessor().get(entity);
         return ((Number) value).intValue();
     }
 
@@ -443,6 +1154,7 @@ public class Mapping<T> {
      *            Name of the field to ignore.
      */
     public Mapping<T> ignoreField(String fieldName) {
+        checkNotFrozen();
         ignoredFields.add(fieldName);
         return this;
     }
@@ -458,46 +1170,75 @@ public class Mapping<T> {
                     entity.getClass().getSimpleName()));
         }
 
-        InsertCreator insert = new InsertCreator(table);
-
-        insert.setValue(idColumn.getColumnName(), getPrimaryKey(entity));
+        ormConfig.getExecutor().update(bind(getMetadata().getInsertStatement(), getInsertArguments(entity)));
 
         if (versionColumn != null) {
-            insert.setValue(versionColumn.getColumnName(), 0);
+            getMetadata().getVersionAccessor().set(entity, 0);
         }
 
-        for (Column column : columns) {
-            if (!column.isReadOnly()) {
-                insert.setValue(column.getColumnName(), getFieldValueAsColumn(entity, column));
-            }
-        }
-
-        new JdbcTemplate(ormConfig.getDataSource()).update(insert);
-
-        if (versionColumn != null) {
-            ReflectionUtils.setFieldValue(entity, versionColumn.getFieldName(), 0);
-        }
+        getMetadata().snapshotWritten(Collections.singletonList(entity));
 
         return entity;
     }
 
-    private boolean isFieldMapped(String fieldName) {
+    /**
+     * Inserts several entity objects. The insert statement is rendered once,
+     * and the entities are sent to the database in JDBC batches. Entities
+     * whose primary key field is not set are first assigned a key from the
+     * sequence set with {@link #setSequence(String)}.
+     */
+    public Collection<T> insertAll(Collection<T> entities) {
 
-        if (fieldName.equals(idColumn.getFieldName())) {
-            return true;
+        if (entities.isEmpty()) {
+            return entities;
         }
 
-        if (versionColumn != null &&  fieldName.equals(versionColumn.getFieldName())) {
-            return true;
+        assignPrimaryKeys(entities);
+
+        final CompiledStatement statement = getMetadata().getInsertStatement();
+
+        List<Object[]> rows = new ArrayList<Object[]>(entities.size());
+        for (T entity : entities) {
+            rows.add(getInsertArguments(entity));
         }
 
-        for (Column column : columns) {
-            if (column.getFieldName().equals(fieldName)) {
-                return true;
+        ormConfig.getExecutor().batchUpdate(statement.getSql(), rows, BATCH_SIZE,
+                new ParameterizedPreparedStatementSetter<Object[]>() {
+            public void setValues(PreparedStatement ps, Object[] args) throws SQLException {
+                statement.bind(ps, args);
+            }
+        });
+
+        MappingMetadata<T> metadata = getMetadata();
+        for (T entity : entities) {
+            if (versionColumn != null) {
+                metadata.getVersionAccessor().set(entity, 0);
             }
         }
+        metadata.snapshotWritten(entities);
+
+        return entities;
+    }
+
+    /**
+     * Returns true if the entity must be written by an update, i.e. if dirty
+     * checking is disabled, the entity has no snapshot, or one of its columns
+     * has changed since the snapshot.
+     */
+    private boolean isDirty(MappingMetadata<T> metadata, T entity) {
+        Object[] snapshot = metadata.getSnapshots() != null ? metadata.getSnapshots().get(entity) : null;
+        return snapshot == null || !getChangedColumns(snapshot, metadata.getWritableValues(entity)).isEmpty();
+    }
+
+    public boolean isDirtyChecking() {
+        return dirtyChecking;
+    }
 
-        return false;
+    /**
+     * Returns true if {@link #freeze()} has been called on this mapping.
+     */
+    public boolean isFrozen() {
+        return frozen;
     }
 
     /**
@@ -516,8 +1257,60 @@ public class Mapping<T> {
         return true;
     }
 
+    /**
+     * Returns the SQL type to use when binding values of the given column,
+     * based on its converter and the type of its field, or
+     * {@link SqlTypeValue#TYPE_UNKNOWN} if it cannot be determined.
+     */
+    private int resolveSqlType(Column column) {
+
+        Converter<?> converter = getConverter(column);
+
+        if (converter instanceof StringConverter
+                || converter instanceof EnumStringConverter
+                || converter instanceof LocaleConverter
+                || converter instanceof ClassConverter
+                || converter instanceof StringListConverter
+                || converter instanceof StringMapConverter) {
+            return Types.VARCHAR;
+        } else if (converter instanceof TimestampConverter) {
+            return Types.TIMESTAMP;
+        } else if (converter instanceof DefaultConverter) {
+            Class<?> fieldType = ReflectionUtils.getDeclaredFieldWithPath(clazz, column.getFieldName()).getType();
+            return StatementCreatorUtils.javaTypeToSqlParameterType(fieldType);
+        } else {
+            return SqlTypeValue.TYPE_UNKNOWN;
+        }
+    }
+
     public Mapping<T> setAlias(String alias) {
+        checkNotFrozen();
         this.alias = alias;
+        metadata = null;
+        return this;
+    }
+
+    /**
+     * Enables or disables dirty checking. When enabled, the column values of
+     * each entity loaded, inserted or updated through this mapping are
+     * snapshotted. A later {@link #update(Object)} of the entity then sets
+     * only the columns whose values have changed, and {@link #update(Object)}
+     * and {@link #updateAll(Collection)} skip entities with no changes
+     * altogether. Note that a skipped update neither increments the version
+     * nor checks it for concurrent modifications.
+     *
+     * <p>Entities inserted or updated within a Spring-managed transaction are
+     * snapshotted only when the transaction commits, so that writes rolled
+     * back are not mistaken for changes already in the database.
+     *
+     * <p>Column values are compared using equals after conversion, so changes
+     * made in place to a mutable field value that the converter passes through
+     * unchanged, such as a byte array, are not detected.
+     */
+    public Mapping<T> setDirtyChecking(boolean dirtyChecking) {
+        checkNotFrozen();
+        this.dirtyChecking = dirtyChecking;
+        metadata = null;
         return this;
     }
 
@@ -533,27 +1326,228 @@ public class Mapping<T> {
     }
 
     public Mapping<T> setIdColumn(Column idColumn) {
+        checkNotFrozen();
         this.idColumn = idColumn;
+        metadata = null;
         return this;
     }
 
     public Mapping<T> setIdColumn(String idColumnName) {
-        this.idColumn = new Column(idColumnName);
+        return setIdColumn(new Column(idColumnName));
+    }
+
+    /**
+     * Sets the name of the sequence from which {@link #insertAll(Collection)}
+     * assigns primary keys to entities that don't have one.
+     */
+    public Mapping<T> setSequence(String sequenceName) {
+        checkNotFrozen();
+        this.sequenceName = sequenceName;
         return this;
     }
 
     public Mapping<T> setVersionColumn(Column versionColumn) {
+        checkNotFrozen();
         this.versionColumn = versionColumn;
+        metadata = null;
         return this;
     }
 
     public Mapping<T> setVersionColumn(String versionColumnName) {
-        this.versionColumn = new Column(versionColumnName);
-        return this;
+        return setVersionColumn(new Column(versionColumnName));
+    }
+
+    /**
+     * Splits a collection of IDs into chunks small enough to be used in an
+     * IN list. Duplicate IDs are removed.
+     *
+     * @param maxChunkSize
+     *            Maximum number of IDs in each chunk. The actual chunk size
+     *            may be smaller to stay within {@link #MAX_IN_LIST_SIZE} and
+     *            the bind limit.
+     */
+    private List<List<Object>> split(Collection<?> ids, int maxChunkSize) {
+
+        if (maxChunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+
+        // IN lists of up to MAX_IN_LIST_SIZE are padded to a power of two, so
+        // below that a bind limit only admits its highest power of two
+        int limit = ormConfig.getMaxParameters();
+        if (limit < MAX_IN_LIST_SIZE) {
+            limit = Integer.highestOneBit(Math.max(1, limit));
+        }
+
+        int chunkSize = Math.min(Math.min(maxChunkSize, MAX_IN_LIST_SIZE), limit);
+
+        List<List<Object>> chunks = new ArrayList<List<Object>>();
+        List<Object> chunk = null;
+
+        for (Object id : new LinkedHashSet<Object>(ids)) {
+            if (chunk == null || chunk.size() == chunkSize) {
+                chunk = new ArrayList<Object>(chunkSize);
+                chunks.add(chunk);
+            }
+            chunk.add(id);
+        }
+
+        return chunks;
     }
 
     /**
-     * Updates value of entity in the table.
+     * Returns the entities sorted by primary key, so that bulk operations lock
+     * rows in a consistent order. If the keys are not comparable, the entities
+     * are returned in their original order.
+     */
+    private List<T> sortByPrimaryKey(Collection<T> entities) {
+
+        List<T> sorted = new ArrayList<T>(entities);
+
+        for (T entity : sorted) {
+            if (!(getPrimaryKey(entity) instanceof Comparable)) {
+                return sorted;
+            }
+        }
+
+        Collections.sort(sorted, new Comparator<T>() {
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            public int compare(T o1, T o2) {
+                return ((Comparable) getPrimaryKey(o1)).compareTo(getPrimaryKey(o2));
+            }
+        });
+
+        return sorted;
+    }
+
+    /**
+     * Updates several entities in a single JDBC batch. The entities are
+     * updated in primary key order to avoid deadlocks with other bulk
+     * updates, and the version field of each entity that was updated is
+     * incremented.
+     *
+     * <p>If any entities could not be updated, a query determines for each of
+     * them whether its row was deleted or modified, and a
+     * {@link BulkUpdateException} reporting all of them is thrown. Note that
+     * the other entities have still been updated, so callers should normally
+     * call this method within a transaction.
+     *
+     * @throws BulkUpdateException
+     *             if any entity's row no longer exists or has been modified
+     *             since the entity was read
+     */
+    public Collection<T> updateAll(Collection<T> entities) throws BulkUpdateException {
+
+        for (T entity : entities) {
+            if (!hasPrimaryKey(entity)) {
+                throw new RuntimeException(String.format("Tried to update entity of type %s without a primary key", entity
+                        .getClass().getSimpleName()));
+            }
+        }
+
+        MappingMetadata<T> metadata = getMetadata();
+
+        List<T> dirty = new ArrayList<T>(entities.size());
+        for (T entity : entities) {
+            if (isDirty(metadata, entity)) {
+                dirty.add(entity);
+            }
+        }
+
+        if (dirty.isEmpty()) {
+            return entities;
+        }
+
+        List<T> sorted = sortByPrimaryKey(dirty);
+
+        final CompiledStatement statement = getMetadata().getUpdateStatement();
+
+        List<Object[]> rows = new ArrayList<Object[]>(sorted.size());
+        for (T entity : sorted) {
+            rows.add(getUpdateArguments(entity));
+        }
+
+        int[][] counts = ormConfig.getExecutor().batchUpdate(statement.getSql(), rows, BATCH_SIZE,
+                new ParameterizedPreparedStatementSetter<Object[]>() {
+            public void setValues(PreparedStatement ps, Object[] args) throws SQLException {
+                statement.bind(ps, args);
+            }
+        });
+
+        List<T> updated = new ArrayList<T>(sorted.size());
+        List<Object> failedIds = new ArrayList<Object>();
+        int index = 0;
+
+        for (int[] batchCounts : counts) {
+            for (int count : batchCounts) {
+
+                T entity = sorted.get(index++);
+
+                if (count == 1 || count == Statement.SUCCESS_NO_INFO) {
+                    if (versionColumn != null) {
+                        metadata.getVersionAccessor().set(entity, getVersion(entity) + 1);
+                    }
+                    updated.add(entity);
+                } else if (count > 1) {
+                    throw new RuntimeException(
+                            String.format("Updating table %s with id %s updated %d rows. There must be a mapping problem. Is column %s really the primary key?",
+                                    table, getPrimaryKey(entity), count, idColumn));
+                } else {
+                    failedIds.add(getPrimaryKey(entity));
+                }
+            }
+        }
+
+        metadata.snapshotWritten(updated);
+
+        if (!failedIds.isEmpty()) {
+
+            //
+            // Some rows were not updated. Find out which of them still exist
+            // to distinguish deleted rows from out-of-date entities. The IDs
+            // are chunked like those of findByIds to stay within the bind
+            // limit.
+            //
+
+            RowMapper<Object> idMapper = new RowMapper<Object>() {
+                @Override
+                public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+                    return getMetadata().getConverter(idColumn).getFieldValueFromResultSet(rs, idColumn.getColumnName());
+                }
+            };
+
+            Set<Object> existingIds = new HashSet<Object>();
+
+            for (List<Object> chunk : split(failedIds, MAX_IN_LIST_SIZE)) {
+
+                SelectCreator selectIds = new SelectCreator()
+                .column(idColumn.getColumnName())
+                .from(table)
+                .where(in(idColumn.getColumnName(), chunk));
+
+                existingIds.addAll(ormConfig.getExecutor().query(selectIds, idMapper));
+            }
+
+            List<Object> missingIds = new ArrayList<Object>();
+            List<Object> staleIds = new ArrayList<Object>();
+            for (Object id : failedIds) {
+                if (existingIds.contains(id)) {
+                    staleIds.add(id);
+                } else {
+                    missingIds.add(id);
+                }
+            }
+
+            throw new BulkUpdateException(table, missingIds, staleIds);
+        }
+
+        return entities;
+    }
+
+    /**
+     * Updates value of entity in the table. If dirty checking is enabled and
+     * the entity has a snapshot, only the changed columns are updated, and
+     * nothing is sent to the database if no column has changed.
      */
     public T update(T entity) throws RowNotFoundException, OptimisticLockException {
 
@@ -562,29 +1556,42 @@ public class Mapping<T> {
                     .getClass().getSimpleName()));
         }
 
-        UpdateCreator update = new UpdateCreator(table);
+        MappingMetadata<T> metadata = getMetadata();
 
-        update.whereEquals(idColumn.getColumnName(), getPrimaryKey(entity));
+        CompiledStatement statement = metadata.getUpdateStatement();
+        Object[] args;
 
-        if (versionColumn != null) {
-            update.set(versionColumn.getColumnName() + " = " + versionColumn.getColumnName() + " + 1");
-            update.whereEquals(versionColumn.getColumnName(), getVersion(entity));
-        }
+        Object[] snapshot = metadata.getSnapshots() != null ? metadata.getSnapshots().get(entity) : null;
+
+        if (snapshot != null) {
 
-        for (Column column : columns) {
-            if (!column.isReadOnly()) {
-                update.setValue(column.getColumnName(), getFieldValueAsColumn(entity, column));
+            Object[] values = metadata.getWritableValues(entity);
+            BitSet changed = getChangedColumns(snapshot, values);
+
+            if (changed.isEmpty()) {
+                return entity;
+            }
+
+            if (changed.cardinality() < values.length) {
+                statement = getPartialUpdateStatement(metadata, changed);
             }
+
+            args = getPartialUpdateArguments(entity, values, changed);
+
+        } else {
+            args = getUpdateArguments(entity);
         }
 
-        int rows = new JdbcTemplate(ormConfig.getDataSource()).update(update);
+        int rows = ormConfig.getExecutor().update(bind(statement, args));
 
         if (rows == 1) {
 
             if (versionColumn != null) {
-                ReflectionUtils.setFieldValue(entity, versionColumn.getFieldName(), getVersion(entity) + 1);
+                metadata.getVersionAccessor().set(entity, getVersion(entity) + 1);
             }
 
+            metadata.snapshotWritten(Collections.singletonList(entity));
+
             return entity;
 
         } else if (rows > 1) {
@@ -605,7 +1612,7 @@ public class Mapping<T> {
             .from(table)
             .whereEquals(idColumn.getColumnName(), getPrimaryKey(entity));
 
-            rows = new JdbcTemplate(ormConfig.getDataSource()).query(selectById, new ResultSetExtractor<Integer>() {
+            rows = ormConfig.getExecutor().query(selectById, new ResultSetExtractor<Integer>() {
                 @Override
                 public Integer extractData(ResultSet rs) throws SQLException, DataAccessException {
                     rs.next();
@@ -0,0 +1,305 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.krasnay.sqlbuilder.CompiledStatement;
+
+/**
+ * Metadata of a {@link Mapping}, resolved once: the entity constructor, the
+ * field accessor and converter of each column, and the compiled statements
+ * used by the by-ID operations. The writable columns are kept in arrays in
+ * statement argument order. Instances are replaced by the mapping when its
+ * columns change. Besides the resolved metadata, an instance holds the
+ * partial update statements compiled so far and, if dirty checking is
+ * enabled, the snapshots of loaded entities.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+final class MappingMetadata<T> {
+
+    private final Class<T> clazz;
+
+    /**
+     * Default constructor of the entity class, or null if it has none, in
+     * which case the mapping must override {@link Mapping#createInstance()}.
+     */
+    private final Constructor<T> constructor;
+
+    private final FieldAccessor idAccessor;
+
+    private final FieldAccessor versionAccessor;
+
+    private final Map<Column, FieldAccessor> accessors = new IdentityHashMap<Column, FieldAccessor>();
+
+    private final Map<Column, Converter<?>> converters = new IdentityHashMap<Column, Converter<?>>();
+
+    private final EntityRowMapper<T> rowMapper;
+
+    private final Column[] writableColumns;
+
+    private final FieldAccessor[] writableAccessors;
+
+    private final Converter<?>[] writableConverters;
+
+    private final CompiledStatement findByIdStatement;
+
+    private final CompiledStatement insertStatement;
+
+    private final CompiledStatement updateStatement;
+
+    private final CompiledStatement deleteByIdStatement;
+
+    /**
+     * Update statements that set only some of the writable columns, keyed by
+     * the positions of those columns.
+     */
+    private final ConcurrentMap<BitSet, CompiledStatement> partialUpdateStatements = new ConcurrentHashMap<BitSet, CompiledStatement>();
+
+    /**
+     * Snapshots of loaded entities, or null if dirty checking is disabled.
+     */
+    private final EntitySnapshots snapshots;
+
+    /**
+     * Constructor.
+     *
+     * @param mapping
+     *            Mapping whose metadata this is.
+     * @param clazz
+     *            Class of the entities.
+     * @param idColumn
+     *            ID column.
+     * @param versionColumn
+     *            Version column, or null.
+     * @param columns
+     *            Columns selected by queries, in select list order.
+     * @param converters
+     *            Converter of each of the columns.
+     * @param writableColumns
+     *            Columns written by inserts and updates.
+     * @param findByIdStatement
+     *            Statement selecting an entity by ID.
+     * @param insertStatement
+     *            Statement inserting an entity.
+     * @param updateStatement
+     *            Statement updating an entity.
+     * @param deleteByIdStatement
+     *            Statement deleting an entity by ID.
+     * @param dirtyChecking
+     *            Whether to keep snapshots of loaded entities.
+     */
+    MappingMetadata(Mapping<T> mapping, Class<T> clazz, Column idColumn, Column versionColumn, List<Column> columns, List<Converter<?>> converters,
+            List<Column> writableColumns, CompiledStatement findByIdStatement, CompiledStatement insertStatement,
+            CompiledStatement updateStatement, CompiledStatement deleteByIdStatement, boolean dirtyChecking) {
+
+        this.clazz = clazz;
+
+        Constructor<T> ctor;
+        try {
+            ctor = clazz.getDeclaredConstructor();
+            ctor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            ctor = null;
+        }
+        this.constructor = ctor;
+
+        for (int i = 0; i < columns.size(); i++) {
+            this.accessors.put(columns.get(i), ReflectionUtils.getAccessor(clazz, columns.get(i).getFieldName()));
+            this.converters.put(columns.get(i), converters.get(i));
+        }
+
+        this.idAccessor = accessors.get(idColumn);
+        this.versionAccessor = versionColumn != null ? accessors.get(versionColumn) : null;
+
+        this.rowMapper = new EntityRowMapper<T>(mapping, columns, this);
+
+        this.writableColumns = writableColumns.toArray(new Column[writableColumns.size()]);
+        this.writableAccessors = new FieldAccessor[this.writableColumns.length];
+        this.writableConverters = new Converter<?>[this.writableColumns.length];
+        for (int i = 0; i < this.writableColumns.length; i++) {
+            this.writableAccessors[i] = accessors.get(this.writableColumns[i]);
+            this.writableConverters[i] = this.converters.get(this.writableColumns[i]);
+        }
+        this.findByIdStatement = findByIdStatement;
+        this.insertStatement = insertStatement;
+        this.updateStatement = updateStatement;
+        this.deleteByIdStatement = deleteByIdStatement;
+        this.snapshots = dirtyChecking ? new EntitySnapshots() : null;
+    }
+
+    public FieldAccessor getAccessor(Column column) {
+        return accessors.get(column);
+    }
+
+    public Converter<?> getConverter(Column column) {
+        return converters.get(column);
+    }
+
+    public CompiledStatement getDeleteByIdStatement() {
+        return deleteByIdStatement;
+    }
+
+    public CompiledStatement getFindByIdStatement() {
+        return findByIdStatement;
+    }
+
+    public FieldAccessor getIdAccessor() {
+        return idAccessor;
+    }
+
+    public CompiledStatement getInsertStatement() {
+        return insertStatement;
+    }
+
+    /**
+     * Returns the cached update statement that sets the writable columns at
+     * the given positions, or null if it has not been compiled yet.
+     */
+    public CompiledStatement getPartialUpdateStatement(BitSet columns) {
+        return partialUpdateStatements.get(columns);
+    }
+
+    public int getPartialUpdateStatementCount() {
+        return partialUpdateStatements.size();
+    }
+
+    public EntityRowMapper<T> getRowMapper() {
+        return rowMapper;
+    }
+
+    /**
+     * Returns the entity snapshots, or null if dirty checking is disabled.
+     */
+    public EntitySnapshots getSnapshots() {
+        return snapshots;
+    }
+
+    public CompiledStatement getUpdateStatement() {
+        return updateStatement;
+    }
+
+    public FieldAccessor getVersionAccessor() {
+        return versionAccessor;
+    }
+
+    /**
+     * Returns the writable column at the given position.
+     */
+    public Column getWritableColumn(int index) {
+        return writableColumns[index];
+    }
+
+    public int getWritableColumnCount() {
+        return writableColumns.length;
+    }
+
+    /**
+     * Returns the value of the writable column at the given position for an
+     * entity, converted for the database.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public Object getWritableValue(T entity, int index) {
+        return ((Converter) writableConverters[index]).convertFieldValueToColumn(writableAccessors[index].get(entity));
+    }
+
+    /**
+     * Returns the values of all writable columns for an entity, converted for
+     * the database.
+     */
+    public Object[] getWritableValues(T entity) {
+        Object[] values = new Object[writableColumns.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = getWritableValue(entity, i);
+        }
+        return values;
+    }
+
+    /**
+     * Caches an update statement that sets the writable columns at the given
+     * positions. The bit set must not be modified afterwards.
+     */
+    public void putPartialUpdateStatement(BitSet columns, CompiledStatement statement) {
+        partialUpdateStatements.putIfAbsent(columns, statement);
+    }
+
+    /**
+     * Records the current column values of an entity, if dirty checking is
+     * enabled.
+     */
+    public void snapshot(T entity) {
+        if (snapshots != null) {
+            snapshots.put(entity, getWritableValues(entity));
+        }
+    }
+
+    /**
+     * Records the column values of entities that have just been written, if
+     * dirty checking is enabled. If a Spring-managed transaction is active,
+     * the snapshots are recorded only once it commits. Until then the entities
+     * keep their earlier snapshots, so that if the transaction rolls back, a
+     * retried update still writes the changes and checks the version.
+     */
+    public void snapshotWritten(Collection<T> entities) {
+
+        if (snapshots == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (T entity : entities) {
+                snapshot(entity);
+            }
+            return;
+        }
+
+        final List<T> written = new ArrayList<T>(entities);
+        final List<Object[]> values = new ArrayList<Object[]>(written.size());
+        for (T entity : written) {
+            values.add(getWritableValues(entity));
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                for (int i = 0; i < written.size(); i++) {
+                    snapshots.put(written.get(i), values.get(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * Creates an entity using the default constructor of the entity class.
+     */
+    public T newInstance() {
+
+        if (constructor == null) {
+            throw new RuntimeException("Class " + clazz.getName() + " has no default constructor");
+        }
+
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
@@ -2,13 +2,26 @@ package ca.krasnay.sqlbuilder.orm;
 
 import javax.sql.DataSource;
 
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
 import ca.krasnay.sqlbuilder.Dialect;
+import ca.krasnay.sqlbuilder.JdbcTemplateExecutor;
+import ca.krasnay.sqlbuilder.ParameterLimitedDialect;
+import ca.krasnay.sqlbuilder.SqlExecutor;
 import ca.krasnay.sqlbuilder.Supplier;
 
 /**
  * Configuration of the ORM system. Each mapping must be constructed with one of
  * these objects.
  *
+ * The configuration owns a single {@link SqlExecutor}, shared by all mappings
+ * that use it, so that the executor and its exception translator are
+ * initialized only once. By default this is a {@link JdbcTemplateExecutor};
+ * a {@link ca.krasnay.sqlbuilder.DirectSqlExecutor} may be set instead to run
+ * statements with plain JDBC. Per-statement settings such as the fetch size are applied by each
+ * query rather than by the template, so that queries can override them.
+ *
  * @author <a href="mailto:john@krasnay.ca">John Krasnay</a>
  */
 public class OrmConfig {
@@ -19,10 +32,24 @@ public class OrmConfig {
 
     private ConverterFactory converterFactory = new DefaultConverterFactory();
 
+    private int fetchSize;
+
+    private int maxParameters;
+
+    private int maxRows;
+
+    private int queryTimeout;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private SqlExecutor executor;
+
     public OrmConfig(DataSource dataSource, Dialect dialect) {
         super();
         this.dataSource = dataSource;
         this.dialect = dialect;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.executor = new JdbcTemplateExecutor(jdbcTemplate);
     }
 
     public ConverterFactory getConverterFactory() {
@@ -37,6 +64,48 @@ public class OrmConfig {
         return dialect;
     }
 
+    /**
+     * Returns the executor with which mappings execute their statements.
+     */
+    public SqlExecutor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the JdbcTemplate used by the default executor.
+     */
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the maximum number of bind parameters per statement. This is the
+     * value set with {@link #setMaxParameters(int)}, if any, otherwise the
+     * limit declared by the dialect, otherwise
+     * {@link ParameterLimitedDialect#DEFAULT_MAX_PARAMETERS}.
+     */
+    public int getMaxParameters() {
+        if (maxParameters > 0) {
+            return maxParameters;
+        } else if (dialect instanceof ParameterLimitedDialect) {
+            return ((ParameterLimitedDialect) dialect).getMaxParameters();
+        } else {
+            return ParameterLimitedDialect.DEFAULT_MAX_PARAMETERS;
+        }
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+
     public Supplier<Integer> getSequence(String sequenceName) {
         return dialect.getSequence(dataSource, sequenceName);
     }
@@ -46,4 +115,65 @@ public class OrmConfig {
         return this;
     }
 
+    /**
+     * Sets the translator used by the default executor to convert
+     * SQLExceptions into Spring's DataAccessException hierarchy. By default,
+     * the translator is based on the error codes of the data source's
+     * database. An executor set with {@link #setExecutor(SqlExecutor)} must be
+     * configured separately.
+     */
+    public OrmConfig setExceptionTranslator(SQLExceptionTranslator exceptionTranslator) {
+        jdbcTemplate.setExceptionTranslator(exceptionTranslator);
+        return this;
+    }
+
+    /**
+     * Sets the executor with which mappings execute their statements.
+     */
+    public OrmConfig setExecutor(SqlExecutor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the default fetch size of queries run by mappings. Zero, the
+     * default, uses the driver's default. Individual queries may override
+     * this with {@link Mapping.Query#setFetchSize(int)}.
+     */
+    public OrmConfig setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bind parameters per statement, overriding the
+     * limit of the dialect. Zero, the default, uses the dialect's limit.
+     */
+    public OrmConfig setMaxParameters(int maxParameters) {
+        this.maxParameters = maxParameters;
+        return this;
+    }
+
+    /**
+     * Sets the default maximum number of rows returned by queries run by
+     * mappings. Zero, the default, means no limit. Individual queries may
+     * override this with {@link Mapping.Query#setMaxRows(int)}.
+     */
+    public OrmConfig setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    /**
+     * Sets the default timeout, in seconds, of queries run by mappings. Zero,
+     * the default, means no limit. Individual queries may override this with
+     * {@link Mapping.Query#setQueryTimeout(int)}. The timeout also applies to
+     * the statements with which mappings find, insert, update and delete
+     * single entities.
+     */
+    public OrmConfig setQueryTimeout(int queryTimeout) {
+        this.queryTimeout = queryTimeout;
+        return this;
+    }
+
 }
@@ -4,9 +4,91 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Reflection utilities for accessing private fields, including fields of
+ * nested objects identified by a dot-separated path such as "address.city".
+ *
+ * <p>Each path is resolved once per class into a chain of fields, which is
+ * cached for the life of the process and shared by all callers. Only classes
+ * loaded by the class loader of this library, or by one of its parents, are
+ * cached. Caching a class from another loader, such as that of a web
+ * application when this library is deployed in a shared directory, would
+ * keep that loader alive after the application is redeployed, since the
+ * cached fields refer to their classes. Paths of such classes are resolved
+ * on each call, and callers that access them repeatedly, such as
+ * {@link Mapping}, keep the accessors they need themselves.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
 public final class ReflectionUtils {
 
+    /**
+     * Resolved accessors, by class and path, for classes that are safe to
+     * cache.
+     */
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<String, FieldAccessor>> accessors =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<String, FieldAccessor>>();
+
+    /**
+     * Removes all resolved fields from the cache.
+     */
+    public static void clearCache() {
+        accessors.clear();
+    }
+
+    /**
+     * Finds a declared field in a class or its super-classes, and makes it
+     * accessible. Unlike {@link #getDeclaredFieldInHierarchy(Class, String)},
+     * the result is not cached.
+     *
+     * @return The field, or null if it does not exist.
+     */
+    static Field findDeclaredFieldInHierarchy(Class<?> clazz, String fieldName) {
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(fieldName)) {
+                    field.setAccessible(true);
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the accessor for a dot-separated path of fields, resolving it if
+     * it is not already cached.
+     */
+    static FieldAccessor getAccessor(Class<?> clazz, String path) {
+
+        ConcurrentMap<String, FieldAccessor> classAccessors = accessors.get(clazz);
+
+        if (classAccessors == null) {
+            if (!ClassUtils.isCacheSafe(clazz, ReflectionUtils.class.getClassLoader())) {
+                return new FieldAccessor(clazz, path);
+            }
+            classAccessors = new ConcurrentHashMap<String, FieldAccessor>();
+            ConcurrentMap<String, FieldAccessor> existing = accessors.putIfAbsent(clazz, classAccessors);
+            if (existing != null) {
+                classAccessors = existing;
+            }
+        }
+
+        FieldAccessor accessor = classAccessors.get(path);
+
+        if (accessor == null) {
+            accessor = new FieldAccessor(clazz, path);
+            classAccessors.put(path, accessor);
+        }
+
+        return accessor;
+    }
+
     /**
      * Returns an array of all declared fields in the given class and all
      * super-classes.
@@ -42,35 +124,11 @@ public final class ReflectionUtils {
      *            Path to the desired field.
      */
     public static Field getDeclaredFieldWithPath(Class<?> clazz, String path) {
-
-        int lastDot = path.lastIndexOf('.');
-
-        if (lastDot > -1) {
-            String parentPath = path.substring(0, lastDot);
-            String fieldName = path.substring(lastDot + 1);
-            Field parentField = getDeclaredFieldWithPath(clazz, parentPath);
-            return getDeclaredFieldInHierarchy(parentField.getType(), fieldName);
-        } else {
-            return getDeclaredFieldInHierarchy(clazz, path);
-        }
+        return getAccessor(clazz, path).getField();
     }
 
     public static Field getDeclaredFieldInHierarchy(Class<?> clazz, String fieldName) {
-        while (true) {
-            try {
-                Field field = clazz.getDeclaredField(fieldName);
-                field.setAccessible(true);
-                return field;
-            } catch (SecurityException e) {
-                throw new RuntimeException(e);
-            } catch (NoSuchFieldException e) {
-                if (clazz == Object.class) {
-                    throw new RuntimeException(e);
-                } else {
-                    clazz = clazz.getSuperclass();
-                }
-            }
-        }
+        return getAccessor(clazz, fieldName).getField();
     }
 
     /**
@@ -83,13 +141,7 @@ public final class ReflectionUtils {
      *            Name of the field whose value to return.
      */
     public static Object getFieldValue(Object object, String fieldName) {
-        try {
-            return getDeclaredFieldInHierarchy(object.getClass(), fieldName).get(object);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        return getAccessor(object.getClass(), fieldName).get(object);
     }
 
     /**
@@ -104,25 +156,7 @@ public final class ReflectionUtils {
      *         null.
      */
     public static Object getFieldValueWithPath(Object object, String path) {
-
-        int lastDot = path.lastIndexOf('.');
-
-        if (lastDot > -1) {
-
-            String parentPath = path.substring(0, lastDot);
-            String field = path.substring(lastDot + 1);
-
-            Object parentObject = getFieldValueWithPath(object, parentPath);
-
-            if (parentObject == null) {
-                return null;
-            } else {
-                return getFieldValue(parentObject, field);
-            }
-        } else {
-            return getFieldValue(object, path);
-        }
-
+        return getAccessor(object.getClass(), path).get(object);
     }
 
     /**
@@ -137,13 +171,7 @@ public final class ReflectionUtils {
      *            Value to which to set the field.
      */
     public static void setFieldValue(Object object, String fieldName, Object value) {
-        try {
-            getDeclaredFieldInHierarchy(object.getClass(), fieldName).set(object, value);
-        } catch (IllegalArgumentException e) {
-            throw new RuntimeException(e);
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        getAccessor(object.getClass(), fieldName).set(object, value);
     }
 
     /**
@@ -161,29 +189,7 @@ public final class ReflectionUtils {
      *             if one of the intermediate objects on the path is null.
      */
     public static void setFieldValueWithPath(Object object, String path, Object value) throws IllegalStateException {
-
-        int lastDot = path.lastIndexOf('.');
-
-        if (lastDot > -1) {
-
-            String parentPath = path.substring(0, lastDot);
-            String field = path.substring(lastDot + 1);
-            Object parentObject = getFieldValueWithPath(object, parentPath);
-
-            if (parentObject == null) {
-                throw new IllegalStateException(String.format("Null value for %s while accessing %s on object %s",
-                        parentPath,
-                        path,
-                        object));
-            }
-
-            setFieldValue(parentObject, field, value);
-
-        } else {
-            setFieldValue(object, path, value);
-        }
-
+        getAccessor(object.getClass(), path).set(object, value);
     }
 
-
 }
@@ -0,0 +1,198 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+/**
+ * Iterator over the results of a query that reads and maps one row at a time,
+ * returned by {@link Mapping.Query#stream()}. Only the rows of the current
+ * fetch are held in memory, so very large results can be processed.
+ *
+ * <p>The stream holds a database connection until it is closed. It is closed
+ * automatically once the last row has been read, but callers that may stop
+ * early must close it themselves, normally in a finally block:
+ *
+ * <pre>
+ * ResultStream&lt;Employee&gt; stream = mapping.findWhere(predicate).stream();
+ * try {
+ *     while (stream.hasNext()) {
+ *         export(stream.next());
+ *     }
+ * } finally {
+ *     stream.close();
+ * }
+ * </pre>
+ *
+ * Closing the stream while rows remain unread cancels the statement. If the
+ * connection is not part of a Spring-managed transaction, the stream turns
+ * off auto-commit while it is open, since databases such as PostgreSQL only
+ * use a cursor within a transaction.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class ResultStream<T> implements Iterator<T>, Closeable {
+
+    private DataSource dataSource;
+
+    private SQLExceptionTranslator exceptionTranslator;
+
+    private RowMapper<T> rowMapper;
+
+    private Connection con;
+
+    private PreparedStatement ps;
+
+    private ResultSet rs;
+
+    private boolean resetAutoCommit;
+
+    /**
+     * Whether there is another row, or null if the result set has not yet
+     * been advanced past the row last returned.
+     */
+    private Boolean hasNext;
+
+    private int rowNum;
+
+    private boolean closed;
+
+    ResultStream(DataSource dataSource, SQLExceptionTranslator exceptionTranslator, PreparedStatementCreator psc, RowMapper<T> rowMapper) {
+
+        this.dataSource = dataSource;
+        this.exceptionTranslator = exceptionTranslator;
+        this.rowMapper = rowMapper;
+
+        try {
+            con = DataSourceUtils.getConnection(dataSource);
+            if (con.getAutoCommit()) {
+                con.setAutoCommit(false);
+                resetAutoCommit = true;
+            }
+            ps = psc.createPreparedStatement(con);
+            rs = ps.executeQuery();
+        } catch (SQLException e) {
+            close();
+            throw exceptionTranslator.translate("ResultStream", null, e);
+        }
+    }
+
+    /**
+     * Releases the statement and connection held by this stream. If there are
+     * known to be unread rows, the statement is first cancelled. Calling this
+     * method more than once has no effect.
+     */
+    public void close() {
+
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (ps != null && hasUnreadRows()) {
+            try {
+                ps.cancel();
+            } catch (SQLException e) {
+                // Not all drivers support cancel; closing the statement is enough.
+            }
+        }
+
+        JdbcUtils.closeResultSet(rs);
+        JdbcUtils.closeStatement(ps);
+
+        if (con != null) {
+            try {
+                if (resetAutoCommit) {
+                    con.commit();
+                    con.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                throw exceptionTranslator.translate("ResultStream", null, e);
+            } finally {
+                DataSourceUtils.releaseConnection(con, dataSource);
+            }
+        }
+    }
+
+    /**
+     * Returns true if the result set may have rows after the one last
+     * returned. Cancelling a statement whose rows have all been read is not
+     * only wasteful; with some drivers, such as PostgreSQL's, the cancel is
+     * asynchronous and may hit the next statement run on the connection.
+     */
+    private boolean hasUnreadRows() {
+
+        if (hasNext != null) {
+            return hasNext;
+        }
+
+        if (rs == null) {
+            return false;
+        }
+
+        try {
+            if (ps.getMaxRows() > 0 && rowNum >= ps.getMaxRows()) {
+                return false;
+            }
+            return !rs.isAfterLast() && !rs.isLast();
+        } catch (SQLException e) {
+            // Drivers need not support isLast on forward-only result sets
+            return true;
+        }
+    }
+
+    public boolean hasNext() {
+
+        if (closed) {
+            return false;
+        }
+
+        if (hasNext == null) {
+            try {
+                hasNext = rs.next();
+            } catch (SQLException e) {
+                close();
+                throw exceptionTranslator.translate("ResultStream", null, e);
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+
+        return hasNext;
+    }
+
+    public T next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        hasNext = null;
+
+        try {
+            return rowMapper.mapRow(rs, rowNum++);
+        } catch (SQLException e) {
+            close();
+            throw exceptionTranslator.translate("ResultStream", null, e);
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+}
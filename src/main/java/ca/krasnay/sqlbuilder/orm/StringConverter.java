@@ -13,7 +13,7 @@ import java.sql.SQLException;
  * @author John Krasnay <john@krasnay.ca>
  *
  */
-public final class StringConverter implements Converter<String> {
+public final class StringConverter implements IndexedConverter<String> {
 
     private static final StringConverter INSTANCE = new StringConverter();
 
@@ -34,4 +34,9 @@ public final class StringConverter implements Converter<String> {
         return rs.getString(columnLabel);
     }
 
+    @Override
+    public String getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getString(columnIndex);
+    }
+
 }
@@ -11,7 +11,7 @@ import java.util.List;
  *
  * @author <a href="mailto:john@krasnay.ca">John Krasnay</a>
  */
-public class StringListConverter implements Converter<List<String>> {
+public class StringListConverter implements IndexedConverter<List<String>> {
 
     private StringListFlattener flattener;
 
@@ -29,4 +29,9 @@ public class StringListConverter implements Converter<List<String>> {
         return flattener.split(rs.getString(columnLabel));
     }
 
+    @Override
+    public List<String> getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return flattener.split(rs.getString(columnIndex));
+    }
+
 }
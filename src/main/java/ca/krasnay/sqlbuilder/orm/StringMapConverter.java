@@ -14,7 +14,7 @@ import java.util.Map;
  *
  * @author <a href="mailto:john@krasnay.ca">John Krasnay</a>
  */
-public class StringMapConverter implements Converter<Map<String, String>> {
+public class StringMapConverter implements IndexedConverter<Map<String, String>> {
 
     private static final String KEY_VALUE_SEPARATOR = "=";
 
@@ -42,10 +42,17 @@ public class StringMapConverter implements Converter<Map<String, String>> {
 
     @Override
     public Map<String, String> getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+        return toFieldValue(rs.getString(columnLabel));
+    }
 
-        Map<String, String> result = new HashMap<String, String>();
+    @Override
+    public Map<String, String> getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return toFieldValue(rs.getString(columnIndex));
+    }
+
+    private Map<String, String> toFieldValue(String stringValue) {
 
-        String stringValue = rs.getString(columnLabel);
+        Map<String, String> result = new HashMap<String, String>();
 
         if (stringValue != null) {
             List<String> list = flattener.split(stringValue);
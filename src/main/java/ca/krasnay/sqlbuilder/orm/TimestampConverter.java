@@ -11,7 +11,7 @@ import java.util.Date;
  * @author Alex Rykov
  *
  */
-public final class TimestampConverter implements Converter<Date> {
+public final class TimestampConverter implements IndexedConverter<Date> {
 
     private static final TimestampConverter INSTANCE = new TimestampConverter();
 
@@ -39,4 +39,9 @@ public final class TimestampConverter implements Converter<Date> {
         return rs.getTimestamp(columnLabel);
     }
 
+    @Override
+    public Date getFieldValueFromResultSet(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getTimestamp(columnIndex);
+    }
+
 }
@@ -1,6 +1,7 @@
 package ca.krasnay.sqlbuilder.orm;
 
 import ca.krasnay.sqlbuilder.SelectCreator;
+import ca.krasnay.sqlbuilder.Supplier;
 
 /**
  * Exception thrown when more than one record is returned in response to a query
@@ -13,8 +14,30 @@ public class TooManyRowsException extends RuntimeException {
 
     private static final long serialVersionUID = 1L;
 
-    TooManyRowsException(int count, SelectCreator creator) {
-        super("Expected single result, found " + count + " rows for this query: " + creator);
+    private Integer rowCount;
+
+    private transient Supplier<Integer> rowCounter;
+
+    /**
+     * Constructor. Since the query stops reading after the second row, the
+     * actual number of rows is counted only if {@link #getRowCount()} is
+     * called.
+     */
+    TooManyRowsException(SelectCreator creator, Supplier<Integer> rowCounter) {
+        super("Expected single result, found more than one row for this query: " + creator);
+        this.rowCounter = rowCounter;
+    }
+
+    /**
+     * Returns the number of rows returned by the query. The first call
+     * executes a count query. Returns null if the count is no longer
+     * available, for example after the exception has been serialized.
+     */
+    public Integer getRowCount() {
+        if (rowCount == null && rowCounter != null) {
+            rowCount = rowCounter.get();
+        }
+        return rowCount;
     }
 
 }
@@ -12,4 +12,17 @@ public class AbstractSqlCreatorTest extends TestCase {
         assertEquals("param2", sc.allocateParameter());
 
     }
+
+    public void testAllocateParameterWithValue() {
+
+        SelectCreator sc = new SelectCreator();
+        assertEquals("param0", sc.allocateParameter("a"));
+        assertEquals("param1", sc.allocateParameter());
+        assertEquals("param2", sc.allocateParameter(null));
+
+        assertEquals("a", sc.getPreparedStatementCreator().getParameterMap().get("param0"));
+        assertFalse(sc.getPreparedStatementCreator().getParameterMap().containsKey("param1"));
+        assertTrue(sc.getPreparedStatementCreator().getParameterMap().containsKey("param2"));
+
+    }
 }
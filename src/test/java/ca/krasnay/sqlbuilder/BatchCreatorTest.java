@@ -0,0 +1,66 @@
+package ca.krasnay.sqlbuilder;
+
+import junit.framework.TestCase;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class BatchCreatorTest extends TestCase {
+
+    public void testAll() {
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate t = new JdbcTemplate(ds);
+        t.update("create table Employee (id int primary key, name varchar(255))");
+
+        BatchCreator batch = new BatchCreator(ds, 2);
+        for (int i = 1; i <= 5; i++) {
+            batch.add(new InsertCreator("Employee").setValue("id", i).setValue("name", "Emp" + i));
+        }
+
+        assertEquals(4, t.queryForObject("select count(*) from Employee", Integer.class).intValue());
+
+        int[] counts = batch.execute();
+        assertEquals(5, counts.length);
+        assertEquals(5, t.queryForObject("select count(*) from Employee", Integer.class).intValue());
+
+        try {
+            batch.add(new InsertCreator("Employee").setValue("id", 6));
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+        }
+
+        // Same number of parameters, but not the same ones
+        try {
+            batch.add(new InsertCreator("Employee").setValue("id", 6).setValue("title", "Boss"));
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Unknown parameter 'name'"));
+        }
+
+        // Columns are bound by name, so their order does not matter
+        batch.add(new InsertCreator("Employee").setValue("name", "Emp6").setValue("id", 6));
+        assertEquals(6, batch.execute().length);
+        assertEquals("Emp6", t.queryForObject("select name from Employee where id = 6", String.class));
+
+        batch = new BatchCreator(ds, 100)
+        .add(new UpdateCreator("Employee").setValue("name", "Bob").whereEquals("id", 1))
+        .add(new UpdateCreator("Employee").setValue("name", "Bob").whereEquals("id", 42));
+
+        counts = batch.execute();
+        assertEquals(1, counts[0]);
+        assertEquals(0, counts[1]);
+
+        counts = new BatchCreator(ds, 100)
+        .add(new DeleteCreator("Employee").whereEquals("id", 1))
+        .add(new DeleteCreator("Employee").whereEquals("id", 2))
+        .execute();
+
+        assertEquals(2, counts.length);
+        assertEquals(4, t.queryForObject("select count(*) from Employee", Integer.class).intValue());
+
+    }
+
+}
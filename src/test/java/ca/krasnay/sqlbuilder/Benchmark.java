@@ -0,0 +1,108 @@
+package ca.krasnay.sqlbuilder;
+
+import java.util.Arrays;
+
+/**
+ * Minimal timing harness for the benchmarks under src/test. An operation is
+ * run for a number of warm-up rounds, so that the JIT has compiled it, then
+ * for a number of timed rounds, and the median round is reported in
+ * nanoseconds per operation.
+ *
+ * <p>Benchmarks are run through their <code>main</code> methods. They are not
+ * named like tests, so the unit test run does not pick them up.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public abstract class Benchmark {
+
+    /**
+     * Receives the result of each operation, so that the JIT cannot discard
+     * the work being measured.
+     */
+    public static volatile Object sink;
+
+    private static final int WARMUP_ROUNDS = 10;
+
+    private static final int ROUNDS = 10;
+
+    private final String name;
+
+    protected Benchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Performs the operation being measured once.
+     *
+     * @return Any result of the operation. It is consumed so that the work is
+     *         not optimized away.
+     */
+    protected abstract Object run() throws Exception;
+
+    /**
+     * Runs the benchmark, prints its median time per operation, and returns
+     * it.
+     *
+     * @param opsPerRound
+     *            Number of operations in each round.
+     */
+    public double measure(int opsPerRound) throws Exception {
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            runRound(opsPerRound);
+        }
+
+        double[] nanosPerOp = new double[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            nanosPerOp[round] = (double) runRound(opsPerRound) / opsPerRound;
+        }
+
+        Arrays.sort(nanosPerOp);
+        double median = nanosPerOp[ROUNDS / 2];
+
+        System.out.println(String.format("%-50s %12.1f ns/op", name, median));
+
+        return median;
+    }
+
+    /**
+     * Measures two implementations of the same operation and prints how many
+     * times faster the second is. Each is measured twice, alternating, and
+     * only the second pass is kept, so that neither gains from running after
+     * the other has warmed up the shared code.
+     *
+     * @param label
+     *            Label for the speedup line.
+     * @param before
+     *            Benchmark of the original implementation.
+     * @param after
+     *            Benchmark of the new implementation.
+     * @param opsPerRound
+     *            Number of operations in each round.
+     * @return The speedup, i.e. the time of <code>before</code> divided by
+     *         the time of <code>after</code>.
+     */
+    public static double compare(String label, Benchmark before, Benchmark after, int opsPerRound) throws Exception {
+
+        before.measure(opsPerRound);
+        after.measure(opsPerRound);
+
+        double speedup = before.measure(opsPerRound) / after.measure(opsPerRound);
+
+        System.out.println(String.format("%-50s %12.2fx", label + ": speedup", speedup));
+
+        return speedup;
+    }
+
+    private long runRound(int ops) throws Exception {
+        Object result = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            result = run();
+        }
+        long elapsed = System.nanoTime() - start;
+        sink = result;
+        return elapsed;
+    }
+
+}
@@ -0,0 +1,75 @@
+package ca.krasnay.sqlbuilder;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class CompiledStatementTest extends TestCase {
+
+    public void testCompile() throws Exception {
+
+        SelectCreator sc = new SelectCreator()
+        .column("name")
+        .from("Employee")
+        .where("dept_id = :deptId")
+        .whereEquals("active", true)
+        .and("name like :name");
+
+        CompiledStatement stmt = sc.compile("name", "deptId");
+
+        assertEquals("select name from Employee where dept_id = ? and active = ? and name like ?", stmt.getSql());
+        assertEquals(Arrays.asList("name", "deptId"), stmt.getArgumentNames());
+
+        // Changes to the creator don't affect the compiled statement
+        sc.setParameter("param0", false);
+
+        PreparedStatement ps = createMock(PreparedStatement.class);
+        ps.setInt(1, 42);
+        ps.setBoolean(2, true);
+        ps.setString(3, "Bob%");
+
+        Connection con = createMock(Connection.class);
+        expect(con.prepareStatement(stmt.getSql())).andReturn(ps);
+
+        replay(ps, con);
+
+        assertSame(ps, stmt.bind("Bob%", 42).createPreparedStatement(con));
+
+        verify(ps, con);
+
+    }
+
+    public void testErrors() {
+
+        SelectCreator sc = new SelectCreator()
+        .from("Employee")
+        .where("dept_id = :deptId")
+        .and("name = :name");
+
+        try {
+            sc.compile("deptId");
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            sc.compile("deptId", "name", "salary");
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            sc.compile("deptId", "name").bind(1);
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+        }
+
+    }
+}
@@ -0,0 +1,161 @@
+package ca.krasnay.sqlbuilder;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class DirectSqlExecutorTest extends TestCase {
+
+    /**
+     * Data source that, like a saturated pool, refuses to hand out a second
+     * connection while the first is open.
+     */
+    private static class SingleConnectionPool extends DelegatingDataSource {
+
+        private boolean inUse;
+
+        public SingleConnectionPool(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public synchronized Connection getConnection() throws SQLException {
+
+            if (inUse) {
+                throw new SQLException("Pool exhausted");
+            }
+
+            final Connection con = super.getConnection();
+            inUse = true;
+
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                    new InvocationHandler() {
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getName().equals("close")) {
+                        release();
+                    }
+                    try {
+                        return method.invoke(con, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                }
+            });
+        }
+
+        private synchronized void release() {
+            inUse = false;
+        }
+    }
+
+    public void testAll() {
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:direct;DB_CLOSE_DELAY=-1");
+
+        new JdbcTemplate(ds).update("create table Employee (id int primary key, name varchar(255))");
+
+        SqlExecutor executor = new DirectSqlExecutor(ds);
+
+        assertEquals(1, executor.update(new InsertCreator("Employee").setValue("id", 1).setValue("name", "Larry")));
+
+        int[][] counts = executor.batchUpdate("insert into Employee (id, name) values (?, ?)",
+                Arrays.asList(new Object[] { 2, "Curly" }, new Object[] { 3, "Moe" }, new Object[] { 4, "Shemp" }), 2,
+                new ParameterizedPreparedStatementSetter<Object[]>() {
+            public void setValues(PreparedStatement ps, Object[] args) throws SQLException {
+                ps.setInt(1, (Integer) args[0]);
+                ps.setString(2, (String) args[1]);
+            }
+        });
+
+        assertEquals(2, counts.length);
+        assertEquals(2, counts[0].length);
+        assertEquals(1, counts[1].length);
+
+        List<String> names = executor.query(new SelectCreator().column("name").from("Employee").orderBy("id"), new RowMapper<String>() {
+            public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+                return rs.getString(1);
+            }
+        });
+
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe", "Shemp"), names);
+
+        assertEquals(1, executor.update(new DeleteCreator("Employee").whereEquals("id", 4)));
+
+        try {
+            executor.update(new InsertCreator("Employee").setValue("id", 1).setValue("name", "Larry"));
+            fail("Expected exception");
+        } catch (DuplicateKeyException e) {
+        }
+
+    }
+
+    public void testSingleConnectionPool() {
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:directpool;DB_CLOSE_DELAY=-1");
+
+        new JdbcTemplate(ds).update("create table Employee (id int primary key, name varchar(255))");
+
+        // The translator reads the database's error codes with a connection
+        // of its own, so the executor must release its connection first.
+        SqlExecutor executor = new DirectSqlExecutor(new SingleConnectionPool(ds));
+
+        executor.update(new InsertCreator("Employee").setValue("id", 1).setValue("name", "Larry"));
+
+        try {
+            executor.update(new InsertCreator("Employee").setValue("id", 1).setValue("name", "Larry"));
+            fail("Expected exception");
+        } catch (DuplicateKeyException e) {
+        }
+
+    }
+
+    public void testTransactionTimeout() {
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:directtimeout;DB_CLOSE_DELAY=-1");
+
+        final SqlExecutor executor = new DirectSqlExecutor(ds);
+
+        TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(ds));
+        tt.setTimeout(60);
+
+        int timeout = tt.execute(new TransactionCallback<Integer>() {
+            public Integer doInTransaction(TransactionStatus status) {
+                return executor.query(new SelectCreator().column("1").from("dual"), new ResultSetExtractor<Integer>() {
+                    public Integer extractData(ResultSet rs) throws SQLException {
+                        return rs.getStatement().getQueryTimeout();
+                    }
+                });
+            }
+        });
+
+        assertTrue(timeout > 0 && timeout <= 60);
+
+    }
+
+}
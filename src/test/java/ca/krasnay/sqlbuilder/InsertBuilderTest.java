@@ -18,4 +18,32 @@ public class InsertBuilderTest extends TestCase {
         assertEquals("insert into Employee (id, name) values (1, 'Bobo')", builder.toString());
 
     }
+
+    public void testMultipleRows() {
+
+        InsertBuilder builder = new InsertBuilder("Employee")
+        .set("id", "1").set("name", "'Larry'")
+        .newRow()
+        .set("id", "2").set("name", "'Curly'")
+        .newRow()
+        .set("id", "3").set("name", "'Moe'");
+
+        assertEquals(3, builder.getRowCount());
+        assertEquals(2, builder.getColumnCount());
+        assertEquals("insert into Employee (id, name) values (1, 'Larry'), (2, 'Curly'), (3, 'Moe')", builder.toString());
+        assertEquals("insert into Employee (id, name) values (2, 'Curly'), (3, 'Moe')", builder.toString(1, 3));
+
+        try {
+            builder.newRow().set("name", "'Shemp'");
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            new InsertBuilder("Employee").set("id", "1").set("name", "'Larry'").newRow().set("id", "2").newRow();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+        }
+
+    }
 }
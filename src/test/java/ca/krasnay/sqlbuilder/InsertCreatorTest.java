@@ -0,0 +1,71 @@
+package ca.krasnay.sqlbuilder;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+public class InsertCreatorTest extends TestCase {
+
+    public void testSplit() {
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:insertsplit;DB_CLOSE_DELAY=-1");
+
+        JdbcTemplate t = new JdbcTemplate(ds);
+        t.update("create table Employee (id int primary key, name varchar(255))");
+
+        InsertCreator ic = new InsertCreator("Employee");
+        for (int i = 1; i <= 5; i++) {
+            if (i > 1) {
+                ic.newRow();
+            }
+            ic.setValue("id", i).setValue("name", "Emp" + i);
+        }
+
+        List<PreparedStatementCreator> pscs = ic.split(5);
+        assertEquals(3, pscs.size());
+
+        // Each chunk has its own SQL, regardless of execution order
+        assertEquals("insert into Employee (id, name) values (:id, :name), (:id__1, :name__1)",
+                ((ParameterizedPreparedStatementCreator) pscs.get(0)).getSql());
+        assertEquals("insert into Employee (id, name) values (:id__4, :name__4)",
+                ((ParameterizedPreparedStatementCreator) pscs.get(2)).getSql());
+
+        // ...and only the parameters of its own rows
+        assertEquals(4, ((ParameterizedPreparedStatementCreator) pscs.get(0)).getParameterMap().size());
+        assertEquals(2, ((ParameterizedPreparedStatementCreator) pscs.get(2)).getParameterMap().size());
+        assertEquals("Emp5", ((ParameterizedPreparedStatementCreator) pscs.get(2)).getParameterMap().get("name__4"));
+
+        int count = 0;
+        for (int i = pscs.size() - 1; i >= 0; i--) {
+            count += t.update(pscs.get(i));
+        }
+
+        assertEquals(5, count);
+        assertEquals("Emp4", t.queryForObject("select name from Employee where id = 4", String.class));
+
+        assertEquals(1, ic.split(new PostgresqlDialect()).size());
+
+        // Dialects without a declared limit use the default
+        Dialect dialect = new Dialect() {
+            public String createCountSelect(String sql) {
+                return null;
+            }
+            public String createPageSelect(String sql, int limit, int offset) {
+                return null;
+            }
+            public Supplier<Integer> getSequence(DataSource dataSource, String sequenceName) {
+                return null;
+            }
+        };
+        assertEquals(1, ic.split(dialect).size());
+
+    }
+
+}
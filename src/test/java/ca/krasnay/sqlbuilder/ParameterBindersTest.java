@@ -0,0 +1,113 @@
+package ca.krasnay.sqlbuilder;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import junit.framework.TestCase;
+
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.SqlTypeValue;
+
+public class ParameterBindersTest extends TestCase {
+
+    private static class Money implements Serializable {
+        private static final long serialVersionUID = 1;
+        private long cents;
+        private Money(long cents) {
+            this.cents = cents;
+        }
+    }
+
+    private static class ForeignMoney extends Money {
+        private static final long serialVersionUID = 1;
+        private ForeignMoney(long cents) {
+            super(cents);
+        }
+    }
+
+    public void testBuiltInBinders() throws Exception {
+
+        PreparedStatement ps = createMock(PreparedStatement.class);
+        ps.setString(1, "Bob");
+        ps.setLong(2, 42L);
+        ps.setInt(3, 7);
+        replay(ps);
+
+        ParameterBinders.bind(ps, 1, "Bob");
+        ParameterBinders.bind(ps, 2, 42L);
+        ParameterBinders.bind(ps, 3, 7);
+
+        verify(ps);
+    }
+
+    public void testRegisteredBinder() throws Exception {
+
+        ParameterBinders.register(Money.class, new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setLong(index, ((Money) value).cents);
+            }
+        });
+
+        PreparedStatement ps = createMock(PreparedStatement.class);
+        ps.setLong(1, 150L);
+        ps.setLong(2, 275L);
+        replay(ps);
+
+        ParameterBinders.bind(ps, 1, new Money(150));
+        ParameterBinders.bind(ps, 2, new ForeignMoney(275));
+
+        verify(ps);
+
+        assertSame(ParameterBinders.getBinder(Money.class), ParameterBinders.getBinder(ForeignMoney.class));
+
+        // A typed value is bound according to its SQL type, and with the
+        // binder for its type only if the SQL type is unknown
+
+        Timestamp ts = new Timestamp(1000000000000L);
+        Money money = new Money(150);
+
+        ps = createMock(PreparedStatement.class);
+        ps.setLong(1, 150L);
+        ps.setDate(2, new java.sql.Date(ts.getTime()));
+        ps.setObject(3, money, Types.OTHER);
+        ps.setNull(4, Types.BIGINT);
+        replay(ps);
+
+        ParameterBinders.bind(ps, 1, new SqlParameterValue(SqlTypeValue.TYPE_UNKNOWN, new Money(150)));
+        ParameterBinders.bind(ps, 2, new SqlParameterValue(Types.DATE, ts));
+        ParameterBinders.bind(ps, 3, new SqlParameterValue(Types.OTHER, money));
+        ParameterBinders.bind(ps, 4, new SqlParameterValue(Types.BIGINT, null));
+
+        verify(ps);
+    }
+
+    public void testReplaceBinder() throws Exception {
+
+        ParameterBinder first = new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setLong(index, ((Money) value).cents);
+            }
+        };
+
+        ParameterBinder second = new ParameterBinder() {
+            public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+                ps.setString(index, String.valueOf(((Money) value).cents));
+            }
+        };
+
+        // Binders already resolved for sub-types are replaced too
+        ParameterBinders.register(Money.class, first);
+        assertSame(first, ParameterBinders.getBinder(ForeignMoney.class));
+
+        ParameterBinders.register(Money.class, second);
+        assertSame(second, ParameterBinders.getBinder(ForeignMoney.class));
+    }
+
+}
@@ -1,5 +1,10 @@
 package ca.krasnay.sqlbuilder;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import junit.framework.TestCase;
 import ca.krasnay.sqlbuilder.ParameterizedPreparedStatementCreator.SqlAndParams;
 
@@ -48,4 +53,95 @@ public class ParameterizedPreparedStatementCreatorTest extends TestCase {
         assertResult(ppsc, "select * from Employee where name = ? and age > ?", "Joe", 37);
 
     }
+
+    public void testIndexedParameters() {
+
+        ParameterizedPreparedStatementCreator ppsc = new ParameterizedPreparedStatementCreator()
+        .setSql("select * from Employee where name = :param0 and age > :param2 and dept = :dept")
+        .setIndexedParameter(0, "Joe")
+        .setParameter("param2", 37)
+        .setParameter("dept", "Sales");
+
+        assertResult(ppsc, "select * from Employee where name = ? and age > ? and dept = ?", "Joe", 37, "Sales");
+
+        assertEquals(3, ppsc.getParameterMap().size());
+        assertEquals("Joe", ppsc.getParameterMap().get("param0"));
+        assertEquals(37, ppsc.getParameterMap().get("param2"));
+        assertFalse(ppsc.getParameterMap().containsKey("param1"));
+
+        ParameterizedPreparedStatementCreator clone = ppsc.clone().setIndexedParameter(0, "Bob");
+        assertResult(clone, "select * from Employee where name = ? and age > ? and dept = ?", "Bob", 37, "Sales");
+        assertResult(ppsc, "select * from Employee where name = ? and age > ? and dept = ?", "Joe", 37, "Sales");
+
+        ppsc.setSql("select * from Employee where id = :param1");
+        try {
+            ppsc.createSqlAndParams();
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Unknown parameter 'param1' at position 34", e.getMessage());
+        }
+
+        // Names set by the caller are kept in the map, however large their
+        // number, and replace allocated values of the same name
+        ppsc = new ParameterizedPreparedStatementCreator()
+        .setSql("select * from Employee where name = :param0 and id = :param123456789")
+        .setIndexedParameter(0, "Joe")
+        .setParameter("param0", "Bob")
+        .setParameter("param123456789", 42);
+
+        assertResult(ppsc, "select * from Employee where name = ? and id = ?", "Bob", 42);
+        assertEquals(2, ppsc.getParameterMap().size());
+
+        assertEquals(0, ParameterizedPreparedStatementCreator.getParameterIndex("param0"));
+        assertEquals(1000, ParameterizedPreparedStatementCreator.getParameterIndex("param1000"));
+        assertEquals(-1, ParameterizedPreparedStatementCreator.getParameterIndex("param"));
+        assertEquals(-1, ParameterizedPreparedStatementCreator.getParameterIndex("param01"));
+        assertEquals(-1, ParameterizedPreparedStatementCreator.getParameterIndex("param1a"));
+        assertEquals(-1, ParameterizedPreparedStatementCreator.getParameterIndex("name"));
+    }
+
+    public void testCollections() {
+
+        ParameterizedPreparedStatementCreator ppsc = new ParameterizedPreparedStatementCreator()
+        .setSql("select * from Employee where id in (:ids) and dept = :dept")
+        .setParameter("dept", "Sales");
+
+        ppsc.setParameter("ids", Arrays.asList(1));
+        assertResult(ppsc, "select * from Employee where id in (?) and dept = ?", 1, "Sales");
+
+        ppsc.setParameter("ids", Arrays.asList(1, 2, 3));
+        assertResult(ppsc, "select * from Employee where id in (?, ?, ?, ?) and dept = ?", 1, 2, 3, 3, "Sales");
+
+        ppsc.setParameter("ids", Arrays.asList(1, 2, 3, 4, 5));
+        assertResult(ppsc, "select * from Employee where id in (?, ?, ?, ?, ?, ?, ?, ?) and dept = ?", 1, 2, 3, 4, 5, 5, 5, 5, "Sales");
+
+        assertEquals("-- select * from Employee where id in (1, 2, 3, 4, 5) and dept = Sales", ppsc.toString());
+
+        CompiledStatement stmt = ppsc.setParameter("ids", Arrays.asList(1, 2, 3)).compile("dept");
+        assertEquals("select * from Employee where id in (?, ?, ?, ?) and dept = ?", stmt.getSql());
+
+        ppsc.setParameter("ids", Collections.emptyList());
+        try {
+            ppsc.createSqlAndParams();
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+        }
+
+        assertEquals(1, ParameterizedPreparedStatementCreator.getBucketSize(1));
+        assertEquals(2, ParameterizedPreparedStatementCreator.getBucketSize(2));
+        assertEquals(4, ParameterizedPreparedStatementCreator.getBucketSize(3));
+        assertEquals(1024, ParameterizedPreparedStatementCreator.getBucketSize(1000));
+        assertEquals(1024, ParameterizedPreparedStatementCreator.getBucketSize(1024));
+        assertEquals(2048, ParameterizedPreparedStatementCreator.getBucketSize(1025));
+        assertEquals(20480, ParameterizedPreparedStatementCreator.getBucketSize(20000));
+
+        // Lists above the threshold stay within the Postgres bind limit
+
+        List<Integer> ids = new ArrayList<Integer>();
+        for (int i = 0; i < 20000; i++) {
+            ids.add(i);
+        }
+        ppsc.setParameter("ids", ids);
+        assertEquals(20481, ppsc.createSqlAndParams().getParams().size());
+    }
 }
@@ -1,6 +1,7 @@
 package ca.krasnay.sqlbuilder;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -41,15 +42,16 @@ public class PredicateTest extends TestCase {
         .from("Emp")
         .where(in("name", "Larry", "Curly", "Moe"));
 
-        assertEquals("select * from Emp where name in (:param0, :param1, :param2)", sc.getBuilder().toString());
+        assertEquals("select * from Emp where name in (:param0)", sc.getBuilder().toString());
 
-        ParameterizedPreparedStatementCreator ppsc = sc.getPreparedStatementCreator();
+        ParameterizedPreparedStatementCreator ppsc = sc.getPreparedStatementCreator().setSql(sc.getBuilder().toString());
 
         Map<String, Object> map = ppsc.getParameterMap();
 
-        assertEquals("Larry", map.get("param0"));
-        assertEquals("Curly", map.get("param1"));
-        assertEquals("Moe", map.get("param2"));
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe"), map.get("param0"));
+
+        assertEquals("select * from Emp where name in (?, ?, ?, ?)", ppsc.createSqlAndParams().getSql());
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe", "Moe"), ppsc.createSqlAndParams().getParams());
 
     }
 
@@ -66,15 +68,16 @@ public class PredicateTest extends TestCase {
         .from("Emp")
         .where(in("name", names));
 
-        assertEquals("select * from Emp where name in (:param0, :param1, :param2)", sc.getBuilder().toString());
+        assertEquals("select * from Emp where name in (:param0)", sc.getBuilder().toString());
 
-        ParameterizedPreparedStatementCreator ppsc = sc.getPreparedStatementCreator();
+        ParameterizedPreparedStatementCreator ppsc = sc.getPreparedStatementCreator().setSql(sc.getBuilder().toString());
 
         Map<String, Object> map = ppsc.getParameterMap();
 
-        assertEquals("Larry", map.get("param0"));
-        assertEquals("Curly", map.get("param1"));
-        assertEquals("Moe", map.get("param2"));
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe"), map.get("param0"));
+
+        assertEquals("select * from Emp where name in (?, ?, ?, ?)", ppsc.createSqlAndParams().getSql());
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe", "Moe"), ppsc.createSqlAndParams().getParams());
 
     }
 
@@ -163,7 +166,7 @@ public class PredicateTest extends TestCase {
                 .from("Emp")
                 .where(like("name", "Bob"));
 
-        assertEquals("select * from Emp where name like ':param0'", sc.getBuilder().toString());
+        assertEquals("select * from Emp where name like :param0", sc.getBuilder().toString());
         assertEquals("Bob", sc.getPreparedStatementCreator().getParameterMap().get("param0"));
 
     }
@@ -1,6 +1,13 @@
 package ca.krasnay.sqlbuilder;
 
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
 import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.Arrays;
 import java.util.Map;
 
@@ -33,15 +40,57 @@ public class SelectCreatorTest extends TestCase {
 
         SelectBuilder builder = (SelectBuilder) getValue(sc, "builder");
 
-        assertEquals("select * from Emp where name in (:param0, :param1, :param2)", builder.toString());
+        assertEquals("select * from Emp where name in (:param0)", builder.toString());
 
-        ParameterizedPreparedStatementCreator ppsc = sc.getPreparedStatementCreator();
+        ParameterizedPreparedStatementCreator ppsc = sc.getPreparedStatementCreator().setSql(builder.toString());
 
         Map<String, Object> map = ppsc.getParameterMap();
 
-        assertEquals("Larry", map.get("param0"));
-        assertEquals("Curly", map.get("param1"));
-        assertEquals("Moe", map.get("param2"));
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe"), map.get("param0"));
+
+        assertEquals("select * from Emp where name in (?, ?, ?, ?)", ppsc.createSqlAndParams().getSql());
+        assertEquals(Arrays.asList("Larry", "Curly", "Moe", "Moe"), ppsc.createSqlAndParams().getParams());
+
+    }
+
+    public void testStatementOptions() throws Exception {
+
+        SelectCreator sc = new SelectCreator()
+        .column("name")
+        .from("Employee")
+        .setFetchSize(500)
+        .setMaxRows(10)
+        .setQueryTimeout(30);
+
+        PreparedStatement ps = createMock(PreparedStatement.class);
+        ps.setFetchSize(500);
+        ps.setMaxRows(10);
+        ps.setQueryTimeout(30);
+
+        Connection con = createMock(Connection.class);
+        expect(con.prepareStatement("select name from Employee")).andReturn(ps);
+
+        replay(ps, con);
+
+        assertSame(ps, sc.clone().createPreparedStatement(con));
+
+        verify(ps, con);
+
+        // Compiled statements keep the options
+
+        ps = createMock(PreparedStatement.class);
+        ps.setFetchSize(500);
+        ps.setMaxRows(10);
+        ps.setQueryTimeout(30);
+
+        con = createMock(Connection.class);
+        expect(con.prepareStatement("select name from Employee")).andReturn(ps);
+
+        replay(ps, con);
+
+        assertSame(ps, sc.compile().bind().createPreparedStatement(con));
+
+        verify(ps, con);
 
     }
 
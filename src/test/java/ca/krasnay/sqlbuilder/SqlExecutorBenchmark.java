@@ -0,0 +1,100 @@
+package ca.krasnay.sqlbuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Compares the throughput of {@link DirectSqlExecutor} and
+ * {@link JdbcTemplateExecutor} against an in-memory H2 database. Both share a
+ * single connection, so that the cost of opening connections does not hide the
+ * overhead of the executors themselves.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class SqlExecutorBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private static final int BATCH_ROWS = 100;
+
+    private static final RowMapper<String> NAME_MAPPER = new RowMapper<String>() {
+        public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return rs.getString(1);
+        }
+    };
+
+    private static Benchmark queryById(String name, final SqlExecutor executor) {
+        return new Benchmark("query by id: " + name) {
+            private int id;
+            protected Object run() {
+                id = id % ROWS + 1;
+                return executor.query(new ParameterizedPreparedStatementCreator()
+                .setSql("select name from Employee where id = :id")
+                .setParameter("id", id), NAME_MAPPER);
+            }
+        };
+    }
+
+    private static Benchmark updateById(String name, final SqlExecutor executor) {
+        return new Benchmark("update by id: " + name) {
+            private int id;
+            protected Object run() {
+                id = id % ROWS + 1;
+                return executor.update(new ParameterizedPreparedStatementCreator()
+                .setSql("update Employee set salary = salary + 1 where id = :id")
+                .setParameter("id", id));
+            }
+        };
+    }
+
+    private static Benchmark batchUpdate(String name, final SqlExecutor executor) {
+
+        final List<Integer> ids = new ArrayList<Integer>();
+        for (int i = 1; i <= BATCH_ROWS; i++) {
+            ids.add(i);
+        }
+
+        return new Benchmark("batch update " + BATCH_ROWS + " rows: " + name) {
+            protected Object run() {
+                return executor.batchUpdate("update Employee set salary = salary + 1 where id = ?", ids, BATCH_ROWS,
+                        new ParameterizedPreparedStatementSetter<Integer>() {
+                    public void setValues(PreparedStatement ps, Integer id) throws SQLException {
+                        ps.setInt(1, id);
+                    }
+                });
+            }
+        };
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:executor;DB_CLOSE_DELAY=-1");
+
+        SingleConnectionDataSource ds = new SingleConnectionDataSource(h2.getConnection(), true);
+
+        JdbcTemplate t = new JdbcTemplate(ds);
+        t.update("create table Employee (id int primary key, name varchar(255), salary int)");
+        for (int i = 1; i <= ROWS; i++) {
+            t.update("insert into Employee (id, name, salary) values (?, ?, ?)", i, "Emp" + i, 50000);
+        }
+
+        SqlExecutor template = new JdbcTemplateExecutor(t);
+        SqlExecutor direct = new DirectSqlExecutor(ds);
+
+        Benchmark.compare("query by id", queryById("JdbcTemplate", template), queryById("direct", direct), 20000);
+        Benchmark.compare("update by id", updateById("JdbcTemplate", template), updateById("direct", direct), 20000);
+        Benchmark.compare("batch update " + BATCH_ROWS + " rows", batchUpdate("JdbcTemplate", template),
+                batchUpdate("direct", direct), 500);
+    }
+
+}
@@ -0,0 +1,98 @@
+package ca.krasnay.sqlbuilder;
+
+import java.lang.reflect.Constructor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the cost of compiling a {@link SqlTemplate} with the single-pass
+ * lexer against the regex parse it replaced. Each operation compiles a
+ * template directly, bypassing the cache, which is the cost paid on a cache
+ * miss.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class SqlTemplateBenchmark {
+
+    private static final Pattern PARAM_PATTERN = Pattern.compile(":([a-z][_a-z0-9]*)", Pattern.CASE_INSENSITIVE);
+
+    private static final String SHORT_SQL = "select * from Employee where id = :id";
+
+    private static final String LONG_SQL;
+
+    static {
+        SelectBuilder select = new SelectBuilder()
+        .column("e.id").column("e.name").column("e.salary").column("d.name")
+        .from("Employee e").join("Department d on e.department_id = d.id")
+        .where("e.name like :name")
+        .where("e.salary between :minSalary and :maxSalary")
+        .where("d.name in (:dept0, :dept1, :dept2, :dept3, :dept4)")
+        .where("e.status <> 'deleted: yes'")
+        .orderBy("e.name");
+        LONG_SQL = select.toString();
+    }
+
+    /**
+     * Parses the SQL the way SqlTemplate did before the lexer, returning the
+     * same "?" SQL.
+     */
+    private static String parseWithRegex(String sql) {
+
+        Matcher m = PARAM_PATTERN.matcher(sql);
+
+        int count = 0;
+        while (m.find()) {
+            count++;
+        }
+
+        String[] fragments = new String[count + 1];
+        String[] paramNames = new String[count];
+        int[] positions = new int[count];
+
+        StringBuilder psSql = new StringBuilder(sql.length());
+
+        m.reset();
+        int index = 0;
+        int slot = 0;
+        while (m.find()) {
+            fragments[slot] = sql.substring(index, m.start());
+            paramNames[slot] = m.group(1);
+            positions[slot] = m.start();
+            psSql.append(fragments[slot]).append('?');
+            index = m.end();
+            slot++;
+        }
+
+        fragments[slot] = sql.substring(index);
+        psSql.append(fragments[slot]);
+
+        return psSql.toString();
+    }
+
+    private static void compare(final String label, final String sql, final Constructor<SqlTemplate> lexer) throws Exception {
+
+        double regex = new Benchmark(label + ": regex") {
+            protected Object run() {
+                return parseWithRegex(sql);
+            }
+        }.measure(100000);
+
+        double lexed = new Benchmark(label + ": lexer") {
+            protected Object run() throws Exception {
+                return lexer.newInstance(sql);
+            }
+        }.measure(100000);
+
+        System.out.println(String.format("%-50s %12.2fx", label + ": speedup", regex / lexed));
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        Constructor<SqlTemplate> lexer = SqlTemplate.class.getDeclaredConstructor(String.class);
+        lexer.setAccessible(true);
+
+        compare("short select, 1 param", SHORT_SQL, lexer);
+        compare("joined select, 8 params", LONG_SQL, lexer);
+    }
+
+}
@@ -0,0 +1,71 @@
+package ca.krasnay.sqlbuilder;
+
+import junit.framework.TestCase;
+
+public class SqlTemplateTest extends TestCase {
+
+    public void testCache() {
+
+        String sql = "select * from Employee where id = :id";
+
+        SqlTemplate template = SqlTemplate.get(sql);
+        assertSame(template, SqlTemplate.get(new String(sql)));
+
+        for (int i = 0; i < SqlTemplate.MAX_CACHE_SIZE * 2; i++) {
+            SqlTemplate.get("select * from Employee where id = " + i);
+        }
+
+        assertTrue(SqlTemplate.getCacheSize() <= SqlTemplate.MAX_CACHE_SIZE);
+
+    }
+
+    public void testSlots() {
+
+        SqlTemplate template = SqlTemplate.get("select * from Employee where name = :name and age > :age or name = :name");
+
+        assertEquals("select * from Employee where name = ? and age > ? or name = ?", template.getPreparedStatementSql());
+        assertEquals(3, template.getParamCount());
+
+        assertEquals("name", template.getParamName(0));
+        assertEquals("age", template.getParamName(1));
+        assertEquals("name", template.getParamName(2));
+
+        assertEquals(36, template.getPosition(0));
+
+        assertEquals("select * from Employee where name = ", template.getFragment(0));
+        assertEquals(" and age > ", template.getFragment(1));
+        assertEquals(" or name = ", template.getFragment(2));
+        assertEquals("", template.getFragment(3));
+
+    }
+
+    public void testLexer() {
+
+        assertLexed("select * from Employee where name = 'foo:bar'");
+        assertLexed("select * from Employee where name = 'it''s :not'");
+        assertLexed("select \":quoted\" from Employee");
+        assertLexed("select * from Employee -- where id = :id\n");
+        assertLexed("select * /* where id = :id */ from Employee");
+        assertLexed("select * /* nested /* :id */ :id */ from Employee");
+        assertLexed("select $$ :body $$, $tag$ :body $$ $tag$ from Employee");
+        assertLexed("select id::text from Employee");
+
+        assertLexed("select a$b, :id::text from Employee where x = $1", "id");
+        assertLexed("select * from Employee where name = 'x' and id = :id -- :foo\n and age > :age", "id", "age");
+
+    }
+
+    private void assertLexed(String sql, String... names) {
+
+        SqlTemplate template = SqlTemplate.get(sql);
+
+        assertEquals(names.length, template.getParamCount());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], template.getParamName(i));
+        }
+
+        if (names.length == 0) {
+            assertEquals(sql, template.getPreparedStatementSql());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import junit.framework.TestCase;
+
+public class FieldAccessorTest extends TestCase {
+
+    private static class Address {
+        private String street;
+    }
+
+    private static class UsAddress extends Address {
+        private String zip;
+    }
+
+    private static class Entity {
+        private int id;
+    }
+
+    private static class Person extends Entity {
+        private String name;
+        private Address address;
+    }
+
+    public void testAll() {
+
+        Person person = new Person();
+
+        FieldAccessor id = new FieldAccessor(Person.class, "id");
+        FieldAccessor street = new FieldAccessor(Person.class, "address.street");
+
+        assertEquals(int.class, id.getType());
+        assertEquals(String.class, street.getType());
+
+        id.set(person, 42);
+        assertThat(((Entity) person).id, equalTo(42));
+        assertThat((Integer) id.get(person), equalTo(42));
+
+        assertThat(street.get(person), nullValue());
+
+        try {
+            street.set(person, "123 Main");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Null value for address while accessing address.street"));
+        }
+
+        person.address = new Address();
+        street.set(person, "123 Main");
+        assertThat(person.address.street, equalTo("123 Main"));
+        assertThat((String) street.get(person), equalTo("123 Main"));
+
+        try {
+            new FieldAccessor(Person.class, "city");
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+        }
+
+        try {
+            new FieldAccessor(Person.class, "name.city");
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+        }
+
+        try {
+            new FieldAccessor(Person.class, "address.city").get(person);
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+        }
+
+    }
+
+    public void testSubclassField() {
+
+        Person person = new Person();
+
+        // zip is declared by a subclass of the declared type of address
+        FieldAccessor zip = new FieldAccessor(Person.class, "address.zip");
+
+        assertThat(zip.get(person), nullValue());
+
+        try {
+            zip.set(person, "90210");
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("Null value for address while accessing address.zip"));
+        }
+
+        person.address = new UsAddress();
+        zip.set(person, "90210");
+        assertThat(((UsAddress) person.address).zip, equalTo("90210"));
+        assertThat((String) zip.get(person), equalTo("90210"));
+        assertThat((String) ReflectionUtils.getFieldValueWithPath(person, "address.zip"), equalTo("90210"));
+
+        person.address = new Address();
+        try {
+            zip.get(person);
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+        }
+
+    }
+
+}
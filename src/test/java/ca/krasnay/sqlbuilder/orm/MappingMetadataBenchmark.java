@@ -0,0 +1,164 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ca.krasnay.sqlbuilder.Benchmark;
+import ca.krasnay.sqlbuilder.PostgresqlDialect;
+import ca.krasnay.sqlbuilder.Predicates;
+
+/**
+ * Compares entity creation and field access through the cached
+ * {@link MappingMetadata} against the per-call reflective lookups it
+ * replaced, both in isolation and when hydrating query results from H2.
+ *
+ * @author John Krasnay <john@krasnay.ca>
+ */
+public class MappingMetadataBenchmark {
+
+    public static class Employee {
+        private int id;
+        private int version;
+        private String name;
+        private String email;
+        private String title;
+        private int salary;
+    }
+
+    private static final String[] FIELDS = { "id", "version", "name", "email", "title", "salary" };
+
+    private static final int ROWS = 1000;
+
+    /**
+     * Creates an entity the way Mapping did before the constructor was
+     * cached.
+     */
+    private static <T> T createWithLookup(Class<T> clazz) throws Exception {
+        Constructor<T> ctor = clazz.getDeclaredConstructor();
+        ctor.setAccessible(true);
+        return ctor.newInstance();
+    }
+
+    /**
+     * Reads a field the way Mapping did before the accessors were cached.
+     */
+    private static Object getWithLookup(Object object, String fieldName) throws Exception {
+        Class<?> clazz = object.getClass();
+        while (true) {
+            try {
+                Field field = clazz.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return field.get(object);
+            } catch (NoSuchFieldException e) {
+                if (clazz == Object.class) {
+                    throw e;
+                }
+                clazz = clazz.getSuperclass();
+            }
+        }
+    }
+
+    private static Mapping<Employee> createMapping(OrmConfig ormConfig) {
+        return new Mapping<Employee>(ormConfig, Employee.class, "Employee")
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addColumn("name")
+        .addColumn("email")
+        .addColumn("title")
+        .addColumn("salary");
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1");
+
+        new JdbcTemplate(ds).update("create table Employee (id int primary key, version int not null, name varchar(255), "
+                + "email varchar(255), title varchar(255), salary int)");
+
+        OrmConfig ormConfig = new OrmConfig(ds, new PostgresqlDialect());
+
+        final Mapping<Employee> mapping = createMapping(ormConfig);
+
+        List<Employee> emps = new ArrayList<Employee>();
+        for (int i = 1; i <= ROWS; i++) {
+            Employee emp = new Employee();
+            emp.id = i;
+            emp.name = "Emp" + i;
+            emp.email = "emp" + i + "@example.com";
+            emp.title = "Developer";
+            emp.salary = 50000 + i;
+            emps.add(emp);
+        }
+        mapping.insertAll(emps);
+
+        final Employee emp = emps.get(0);
+        final MappingMetadata<Employee> metadata = mapping.getMetadata();
+        final List<FieldAccessor> accessors = new ArrayList<FieldAccessor>();
+        for (String field : FIELDS) {
+            // The same cached accessors that the metadata holds
+            accessors.add(ReflectionUtils.getAccessor(Employee.class, field));
+        }
+
+        Benchmark.compare("create instance", new Benchmark("create instance: lookup") {
+            protected Object run() throws Exception {
+                return createWithLookup(Employee.class);
+            }
+        }, new Benchmark("create instance: metadata") {
+            protected Object run() {
+                return metadata.newInstance();
+            }
+        }, 100000);
+
+        Benchmark.compare("read 6 fields", new Benchmark("read 6 fields: lookup") {
+            protected Object run() throws Exception {
+                Object result = null;
+                for (String field : FIELDS) {
+                    result = getWithLookup(emp, field);
+                }
+                return result;
+            }
+        }, new Benchmark("read 6 fields: metadata") {
+            protected Object run() {
+                Object result = null;
+                for (int i = 0; i < accessors.size(); i++) {
+                    result = accessors.get(i).get(emp);
+                }
+                return result;
+            }
+        }, 100000);
+
+        final Mapping<Employee> lookupMapping = new Mapping<Employee>(ormConfig, Employee.class, "Employee") {
+            @Override
+            protected Employee createInstance() {
+                try {
+                    return createWithLookup(Employee.class);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addColumn("name")
+        .addColumn("email")
+        .addColumn("title")
+        .addColumn("salary");
+
+        Benchmark.compare("hydrate " + ROWS + " rows", new Benchmark("hydrate " + ROWS + " rows: lookup") {
+            protected Object run() {
+                return lookupMapping.findWhere(Predicates.gt("id", 0)).setMaxRows(0).getResultList();
+            }
+        }, new Benchmark("hydrate " + ROWS + " rows: metadata") {
+            protected Object run() {
+                return mapping.findWhere(Predicates.gt("id", 0)).setMaxRows(0).getResultList();
+            }
+        }, 200);
+    }
+
+}
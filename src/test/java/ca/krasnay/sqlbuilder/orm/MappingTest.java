@@ -2,12 +2,43 @@ package ca.krasnay.sqlbuilder.orm;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
 import junit.framework.TestCase;
 
 import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.JdbcTemplate;
-
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ca.krasnay.sqlbuilder.BulkSupplier;
+import ca.krasnay.sqlbuilder.Consumer;
+import ca.krasnay.sqlbuilder.DirectSqlExecutor;
+import ca.krasnay.sqlbuilder.JdbcTemplateExecutor;
 import ca.krasnay.sqlbuilder.PostgresqlDialect;
+import ca.krasnay.sqlbuilder.Predicates;
+import ca.krasnay.sqlbuilder.Supplier;
 
 public class MappingTest extends TestCase {
 
@@ -17,6 +48,62 @@ public class MappingTest extends TestCase {
         private String name;
     }
 
+    public static class Contact {
+        private int id;
+        private int version;
+        private String name;
+        private String email;
+    }
+
+    private JdbcDataSource ds;
+
+    private JdbcTemplate t;
+
+    @Override
+    protected void setUp() throws Exception {
+
+        ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:" + getName() + ";DB_CLOSE_DELAY=-1");
+
+        t = new JdbcTemplate(ds);
+        t.update("create table Employee (id int primary key, version int not null, name varchar(255))");
+        t.update("create table Contact (id int primary key, version int not null, name varchar(255), email varchar(255))");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        t.update("drop all objects");
+    }
+
+    /**
+     * Returns the usual mapping of the Employee table.
+     */
+    private Mapping<Employee> createMapping(OrmConfig ormConfig) {
+        return new Mapping<Employee>(ormConfig, Employee.class, "Employee")
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addColumn("name");
+    }
+
+    private Mapping<Employee> createMapping() {
+        return createMapping(new OrmConfig(ds, new PostgresqlDialect()));
+    }
+
+    /**
+     * Inserts employees with IDs 1 through count, named "Emp1", "Emp2", etc.
+     */
+    private List<Employee> insertEmployees(Mapping<Employee> mapping, int count) {
+        List<Employee> emps = new ArrayList<Employee>();
+        for (int i = 1; i <= count; i++) {
+            Employee emp = new Employee();
+            emp.id = i;
+            emp.name = "Emp" + i;
+            emps.add(emp);
+        }
+        mapping.insertAll(emps);
+        return emps;
+    }
+
     public void testAll() throws Exception {
 
         Class.forName("org.h2.Driver");
@@ -41,6 +128,8 @@ public class MappingTest extends TestCase {
             emp = mapping.findById(42);
             fail("Expected exception");
         } catch (RowNotFoundException e) {
+            assertThat(e.getTable(), is("Employee"));
+            assertThat(e.getId(), is((Object) 42));
         }
 
         emp = new Employee();
@@ -111,4 +200,526 @@ public class MappingTest extends TestCase {
 
     }
 
+    public void testCompiledStatements() throws Exception {
+
+        Mapping<Employee> mapping = new Mapping<Employee>(new OrmConfig(ds, new PostgresqlDialect()), Employee.class, "Employee")
+        .setIdColumn(new Column("id"))
+        .setVersionColumn("version");
+
+        MappingMetadata<Employee> metadata = mapping.getMetadata();
+        assertSame(metadata.getInsertStatement(), mapping.getMetadata().getInsertStatement());
+        assertEquals("insert into Employee (id, version) values (?, ?)", metadata.getInsertStatement().getSql());
+        assertEquals("delete from Employee where id = ?", metadata.getDeleteByIdStatement().getSql());
+
+        mapping.addColumn("name");
+
+        assertEquals("insert into Employee (id, version, name) values (?, ?, ?)", mapping.getMetadata().getInsertStatement().getSql());
+        assertEquals("update Employee set version = version + 1, name = ? where id = ? and version = ?",
+                mapping.getMetadata().getUpdateStatement().getSql());
+        assertEquals("select _t0.id, _t0.version, _t0.name from Employee _t0 where _t0.id = ?",
+                mapping.getMetadata().getFindByIdStatement().getSql());
+    }
+
+    public void testFreeze() throws Exception {
+
+        OrmConfig ormConfig = new OrmConfig(ds, new PostgresqlDialect());
+
+        try {
+            new Mapping<Employee>(ormConfig, Employee.class, "Employee").freeze();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+        }
+
+        try {
+            new Mapping<Employee>(ormConfig, Employee.class, "Employee")
+            .setIdColumn("id")
+            .addColumn("name")
+            .addColumn("version", "name")
+            .freeze();
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+        }
+
+        try {
+            new Mapping<Employee>(ormConfig, Employee.class, "Employee")
+            .setIdColumn("id")
+            .addColumn("salary")
+            .freeze();
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+        }
+
+        Mapping<Employee> mapping = new Mapping<Employee>(ormConfig, Employee.class, "Employee")
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addFields();
+
+        assertFalse(mapping.isFrozen());
+        assertSame(mapping, mapping.freeze());
+        assertTrue(mapping.isFrozen());
+
+        assertEquals("insert into Employee (id, version, name) values (?, ?, ?)", mapping.getMetadata().getInsertStatement().getSql());
+
+        try {
+            mapping.addColumn("name");
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+        }
+
+        try {
+            mapping.setAlias("e");
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    public void testSqlTypes() throws Exception {
+
+        Column nameColumn = new Column("name");
+
+        new Mapping<Employee>(new OrmConfig(ds, new PostgresqlDialect()), Employee.class, "Employee")
+        .setIdColumn("id")
+        .addColumn(nameColumn);
+
+        assertThat(nameColumn.getSqlType(), is(Types.VARCHAR));
+
+        Mapping<Employee> mapping = createMapping();
+
+        Employee emp = new Employee();
+        emp.id = 1;
+        mapping.insert(emp);
+
+        emp = mapping.findById(1);
+        assertNull(emp.name);
+
+        mapping.update(emp);
+        assertThat(emp.version, is(1));
+
+    }
+
+    public void testInsertAll() throws Exception {
+
+        final List<Integer> allocations = new ArrayList<Integer>();
+
+        OrmConfig ormConfig = new OrmConfig(ds, new PostgresqlDialect() {
+            @Override
+            public Supplier<Integer> getSequence(DataSource dataSource, String sequenceName) {
+                return new BulkSupplier<Integer>() {
+                    private int next = 100;
+                    public Integer get() {
+                        return get(1).get(0);
+                    }
+                    public List<Integer> get(int count) {
+                        allocations.add(count);
+                        List<Integer> ids = new ArrayList<Integer>();
+                        for (int i = 0; i < count; i++) {
+                            ids.add(next++);
+                        }
+                        return ids;
+                    }
+                };
+            }
+        });
+
+        Mapping<Employee> mapping = createMapping(ormConfig);
+
+        List<Employee> emps = new ArrayList<Employee>();
+        for (int i = 0; i < 3; i++) {
+            Employee emp = new Employee();
+            emp.name = "Emp" + i;
+            emp.version = 5;
+            emps.add(emp);
+        }
+        emps.get(1).id = 1;
+
+        try {
+            mapping.insertAll(emps);
+            fail("Expected error due to missing sequence");
+        } catch (RuntimeException e) {
+        }
+
+        mapping.setSequence("empseq").insertAll(emps);
+
+        assertEquals(1, allocations.size());
+        assertThat(allocations.get(0), is(2));
+        assertThat(emps.get(0).id, is(100));
+        assertThat(emps.get(1).id, is(1));
+        assertThat(emps.get(2).id, is(101));
+        assertThat(emps.get(2).version, is(0));
+
+        assertThat(t.queryForObject("select count(*) from Employee", Integer.class), is(3));
+        assertThat(mapping.findById(101).name, is("Emp2"));
+
+    }
+
+    public void testUpdateAll() throws Exception {
+
+        // One ID per query when looking up failed updates
+        Mapping<Employee> mapping = createMapping(new OrmConfig(ds, new PostgresqlDialect()).setMaxParameters(1));
+
+        // Out of order, to check that updates are sorted by ID
+        List<Employee> emps = insertEmployees(mapping, 3);
+        Collections.reverse(emps);
+
+        for (Employee emp : emps) {
+            emp.name = emp.name + "x";
+        }
+        mapping.updateAll(emps);
+
+        for (Employee emp : emps) {
+            assertThat(emp.version, is(1));
+        }
+        assertThat(mapping.findById(2).name, is("Emp2x"));
+
+        // Stale version on row 3, deleted row 1
+        emps.get(0).version = 0;
+        t.update("delete from Employee where id = 1");
+
+        try {
+            mapping.updateAll(emps);
+            fail("Expected exception");
+        } catch (BulkUpdateException e) {
+            assertThat(e.getMissingIds(), is(Arrays.asList((Object) 1)));
+            assertThat(e.getStaleIds(), is(Arrays.asList((Object) 3)));
+        }
+
+        assertThat(emps.get(1).version, is(2));
+
+        emps.remove(2);
+
+        try {
+            mapping.updateAll(emps);
+            fail("Expected exception");
+        } catch (BulkUpdateException e) {
+            assertTrue(e.getMissingIds().isEmpty());
+            assertThat(e.getStaleIds(), is(Arrays.asList((Object) 3)));
+        }
+
+    }
+
+    public void testFindByIds() throws Exception {
+
+        // The default max rows must not truncate the chunks
+        Mapping<Employee> mapping = createMapping(new OrmConfig(ds, new PostgresqlDialect()).setMaxParameters(3).setMaxRows(1));
+        insertEmployees(mapping, 5);
+
+        List<Integer> ids = Arrays.asList(5, 1, 2, 42, 4, 1);
+
+        Map<Object, Employee> map = mapping.findByIds(ids);
+        assertEquals(4, map.size());
+        assertThat(map.get(5).name, is("Emp5"));
+        assertFalse(map.containsKey(42));
+        assertFalse(map.containsKey(3));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            map = mapping.findByIds(ids, executor);
+            assertEquals(4, map.size());
+            assertThat(map.get(4).name, is("Emp4"));
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(mapping.findByIds(new ArrayList<Integer>()).isEmpty());
+
+    }
+
+    public void testBulkDelete() throws Exception {
+
+        Mapping<Employee> mapping = createMapping();
+        insertEmployees(mapping, 10);
+
+        DeleteResult result = mapping.deleteByIds(Arrays.asList(1, 2, 3, 42), 2);
+        assertEquals(3, result.getRowCount());
+        assertEquals(2, result.getChunkCount());
+        assertEquals(2, result.getChunkTimes().size());
+
+        result = mapping.deleteWhere(Predicates.in("_t0.id", 2, 4, 6, 8, 10), 2);
+        assertEquals(4, result.getRowCount());
+        assertEquals(3, result.getChunkCount());
+
+        assertThat(t.queryForObject("select count(*) from Employee", Integer.class), is(3));
+        assertThat(t.queryForObject("select count(*) from Employee where mod(id, 2) = 0", Integer.class), is(0));
+
+        // Chunk sizes are not rounded down to a power of two
+        result = mapping.deleteByIds(Arrays.asList(5, 7, 9), 3);
+        assertEquals(3, result.getRowCount());
+        assertEquals(1, result.getChunkCount());
+
+    }
+
+    public void testStream() throws Exception {
+
+        Mapping<Employee> mapping = createMapping();
+        insertEmployees(mapping, 5);
+
+        ResultStream<Employee> stream = mapping.findWhere(Predicates.gt("id", 1)).orderBy("id").setFetchSize(2).stream();
+        List<Integer> ids = new ArrayList<Integer>();
+        while (stream.hasNext()) {
+            ids.add(stream.next().id);
+        }
+        assertEquals(Arrays.asList(2, 3, 4, 5), ids);
+        assertFalse(stream.hasNext());
+        stream.close();
+
+        stream = mapping.findWhere(Predicates.gt("id", 1)).orderBy("id").stream();
+        assertThat(stream.next().id, is(2));
+        stream.close();
+        assertFalse(stream.hasNext());
+
+        final List<String> names = new ArrayList<String>();
+        mapping.findWhere(Predicates.lt("id", 3)).orderBy("id").forEach(new Consumer<Employee>() {
+            public void accept(Employee emp) {
+                names.add(emp.name);
+            }
+        });
+        assertEquals(Arrays.asList("Emp1", "Emp2"), names);
+
+    }
+
+    public void testStatementOptions() throws Exception {
+
+        insertEmployees(createMapping(), 5);
+
+        // Default max rows from the OrmConfig, overridden by the query
+        Mapping<Employee> limited = createMapping(new OrmConfig(ds, new PostgresqlDialect()).setMaxRows(2));
+        assertEquals(2, limited.findWhere(Predicates.gt("id", 0)).getResultList().size());
+        assertEquals(5, limited.findWhere(Predicates.gt("id", 0)).setMaxRows(0).getResultList().size());
+
+        // Options changed after the mapping's statements have been compiled
+        // still apply to them
+        final List<String> options = new ArrayList<String>();
+
+        OrmConfig ormConfig = new OrmConfig(ds, new PostgresqlDialect());
+        ormConfig.setExecutor(new JdbcTemplateExecutor(ormConfig.getJdbcTemplate()) {
+
+            private PreparedStatementCreator record(final PreparedStatementCreator psc) {
+                return new PreparedStatementCreator() {
+                    public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+                        PreparedStatement ps = psc.createPreparedStatement(con);
+                        options.add(ps.getFetchSize() + "/" + ps.getQueryTimeout());
+                        return ps;
+                    }
+                };
+            }
+
+            @Override
+            public <T> T query(PreparedStatementCreator psc, ResultSetExtractor<T> rse) {
+                return super.query(record(psc), rse);
+            }
+
+            @Override
+            public int update(PreparedStatementCreator psc) {
+                return super.update(record(psc));
+            }
+        });
+
+        Mapping<Employee> mapping = createMapping(ormConfig);
+        Employee emp = mapping.findById(1);
+
+        options.clear();
+        ormConfig.setFetchSize(7).setQueryTimeout(30);
+
+        mapping.findById(1);
+        mapping.update(emp);
+
+        assertEquals(Arrays.asList("7/30", "7/30"), options);
+
+    }
+
+    public void testSingleResult() throws Exception {
+
+        Mapping<Employee> mapping = createMapping();
+        insertEmployees(mapping, 5);
+
+        try {
+            mapping.findWhere(Predicates.gt("id", 1)).getSingleResult();
+            fail("Expected exception");
+        } catch (TooManyRowsException e) {
+            assertThat(e.getRowCount(), is(4));
+        }
+
+        assertNull(mapping.findWhere(Predicates.gt("id", 5)).getSingleResultOrNull());
+        assertThat(mapping.findWhere(Predicates.gt("id", 4)).getSingleResult().name, is("Emp5"));
+
+    }
+
+    public void testConverters() throws Exception {
+
+        // Converter that can only read by label
+        Converter<String> upperCase = new Converter<String>() {
+            public Object convertFieldValueToColumn(String fieldValue) {
+                return fieldValue;
+            }
+            public String getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+                return rs.getString(columnLabel).toUpperCase();
+            }
+        };
+
+        Mapping<Employee> mapping = new Mapping<Employee>(new OrmConfig(ds, new PostgresqlDialect()), Employee.class, "Employee")
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addColumn("name", upperCase);
+
+        Employee emp = new Employee();
+        emp.id = 1;
+        emp.name = "Bobo";
+        mapping.insert(emp);
+
+        emp = mapping.findById(1);
+        assertThat(emp.id, is(1));
+        assertThat(emp.name, is("BOBO"));
+
+        // Subclass of a built-in converter that overrides only the label variant
+        Converter<Object> lowerCase = new DefaultConverter() {
+            @Override
+            public Object getFieldValueFromResultSet(ResultSet rs, String columnLabel) throws SQLException {
+                return rs.getString(columnLabel).toLowerCase();
+            }
+        };
+
+        mapping = new Mapping<Employee>(new OrmConfig(ds, new PostgresqlDialect()), Employee.class, "Employee")
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addColumn("name", lowerCase);
+
+        emp = mapping.findById(1);
+        assertThat(emp.name, is("bobo"));
+
+    }
+
+    public void testDirtyChecking() throws Exception {
+
+        Mapping<Contact> mapping = new Mapping<Contact>(new OrmConfig(ds, new PostgresqlDialect()), Contact.class, "Contact")
+        .setIdColumn("id")
+        .setVersionColumn("version")
+        .addColumn("name")
+        .addColumn("email")
+        .setDirtyChecking(true);
+
+        Contact contact = new Contact();
+        contact.id = 1;
+        contact.name = "Bobo";
+        contact.email = "bobo@example.com";
+        mapping.insert(contact);
+
+        // Unchanged entities are not written at all
+
+        contact = mapping.findById(1);
+        t.update("update Contact set email = 'other@example.com'");
+
+        mapping.update(contact);
+        assertThat(contact.version, is(0));
+
+        mapping.updateAll(Arrays.asList(contact));
+        assertThat(contact.version, is(0));
+        assertThat(t.queryForObject("select email from Contact", String.class), is("other@example.com"));
+
+        // Only changed columns are written
+
+        contact.name = "Bezu";
+        mapping.update(contact);
+        assertThat(contact.version, is(1));
+        assertThat(t.queryForObject("select name from Contact", String.class), is("Bezu"));
+        assertThat(t.queryForObject("select email from Contact", String.class), is("other@example.com"));
+        assertThat(mapping.getMetadata().getPartialUpdateStatementCount(), is(1));
+
+        // The snapshot is refreshed after an update
+
+        mapping.update(contact);
+        assertThat(contact.version, is(1));
+
+        contact.name = "Boffo";
+        contact.version = 0;
+        try {
+            mapping.update(contact);
+            fail("Expected exception");
+        } catch (OptimisticLockException e) {
+        }
+
+        // Entities without a snapshot are written in full
+
+        Contact other = new Contact();
+        other.id = 1;
+        other.version = 1;
+        other.name = "Bobo";
+        mapping.update(other);
+        assertThat(other.version, is(2));
+        assertNull(t.queryForObject("select email from Contact", String.class));
+
+        // Writes are only snapshotted once their transaction commits
+
+        final Mapping<Contact> txMapping = mapping;
+        final Contact txContact = other;
+
+        other.name = "Bazooka";
+        new TransactionTemplate(new DataSourceTransactionManager(ds)).execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                txMapping.update(txContact);
+                status.setRollbackOnly();
+            }
+        });
+        assertThat(t.queryForObject("select name from Contact", String.class), is("Bobo"));
+
+        other.version = 2;
+        mapping.update(other);
+        assertThat(other.version, is(3));
+        assertThat(t.queryForObject("select name from Contact", String.class), is("Bazooka"));
+
+    }
+
+    public void testExceptionTranslator() throws Exception {
+
+        final DataAccessException translated = new DataIntegrityViolationException("Duplicate");
+
+        OrmConfig ormConfig = new OrmConfig(ds, new PostgresqlDialect()).setExceptionTranslator(new SQLExceptionTranslator() {
+            public DataAccessException translate(String task, String sql, SQLException ex) {
+                return translated;
+            }
+        });
+
+        assertSame(ormConfig.getJdbcTemplate(), ormConfig.getJdbcTemplate());
+
+        Mapping<Employee> mapping = createMapping(ormConfig);
+
+        Employee emp = new Employee();
+        emp.id = 1;
+        mapping.insert(emp);
+
+        try {
+            mapping.insert(emp);
+            fail("Expected exception");
+        } catch (DataAccessException e) {
+            assertSame(translated, e);
+        }
+
+    }
+
+    public void testDirectExecutor() throws Exception {
+
+        Mapping<Employee> mapping = createMapping(new OrmConfig(ds, new PostgresqlDialect()).setExecutor(new DirectSqlExecutor(ds)));
+
+        Employee emp = new Employee();
+        emp.id = 1;
+        emp.name = "Bobo";
+        mapping.insert(emp);
+
+        emp = mapping.findById(1);
+        emp.name = "Bezu";
+        mapping.update(emp);
+        assertThat(emp.version, is(1));
+
+        emp.version = 0;
+        try {
+            mapping.update(emp);
+            fail("Expected exception");
+        } catch (OptimisticLockException e) {
+        }
+
+        mapping.deleteById(1);
+        assertNull(mapping.findByIdOrNull(1));
+
+    }
+
 }
@@ -4,7 +4,10 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
 
 import junit.framework.TestCase;
 
@@ -73,4 +76,43 @@ public class ReflectionUtilsTest extends TestCase {
         assertThat(person.address.street, equalTo("123 Main"));
     }
 
+    public void testCache() {
+
+        Field field = ReflectionUtils.getDeclaredFieldWithPath(Person.class, "address.street");
+        assertSame(field, ReflectionUtils.getDeclaredFieldWithPath(Person.class, "address.street"));
+
+        ReflectionUtils.clearCache();
+
+        assertEquals(field, ReflectionUtils.getDeclaredFieldWithPath(Person.class, "address.street"));
+
+        try {
+            ReflectionUtils.getDeclaredFieldInHierarchy(Person.class, "salary");
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof NoSuchFieldException);
+        }
+
+    }
+
+    public void testClassFromOtherLoader() throws Exception {
+
+        assertSame(ReflectionUtils.getAccessor(Person.class, "name"), ReflectionUtils.getAccessor(Person.class, "name"));
+
+        // Simulates an application class from a loader that is not this
+        // library's, which must not be kept alive by the cache
+        URL classes = Address.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader = new URLClassLoader(new URL[] { classes }, null);
+        Class<?> clazz = loader.loadClass(Address.class.getName());
+        assertNotSame(Address.class, clazz);
+
+        assertNotSame(ReflectionUtils.getAccessor(clazz, "street"), ReflectionUtils.getAccessor(clazz, "street"));
+
+        Constructor<?> ctor = clazz.getDeclaredConstructor();
+        ctor.setAccessible(true);
+        Object address = ctor.newInstance();
+        ReflectionUtils.setFieldValue(address, "street", "123 Main");
+        assertThat((String) ReflectionUtils.getFieldValue(address, "street"), equalTo("123 Main"));
+
+    }
+
 }
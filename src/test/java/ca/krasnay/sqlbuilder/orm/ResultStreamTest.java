@@ -0,0 +1,110 @@
+package ca.krasnay.sqlbuilder.orm;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import junit.framework.TestCase;
+
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+
+public class ResultStreamTest extends TestCase {
+
+    private DataSource ds;
+
+    private Connection con;
+
+    private PreparedStatement ps;
+
+    private ResultSet rs;
+
+    private RowMapper<String> rowMapper = new RowMapper<String>() {
+        public String mapRow(ResultSet rs, int rowNum) throws SQLException {
+            return "row" + rowNum;
+        }
+    };
+
+    @Override
+    protected void setUp() throws Exception {
+
+        ds = createMock(DataSource.class);
+        con = createMock(Connection.class);
+        ps = createMock(PreparedStatement.class);
+        rs = createMock(ResultSet.class);
+
+        expect(ds.getConnection()).andReturn(con);
+        expect(con.getAutoCommit()).andReturn(false);
+        expect(ps.executeQuery()).andReturn(rs);
+        expect(rs.next()).andReturn(true);
+    }
+
+    private ResultStream<String> createStream() {
+        return new ResultStream<String>(ds, new SQLStateSQLExceptionTranslator(), new PreparedStatementCreator() {
+            public PreparedStatement createPreparedStatement(Connection con) throws SQLException {
+                return ps;
+            }
+        }, rowMapper);
+    }
+
+    private void expectClose() throws SQLException {
+        rs.close();
+        ps.close();
+        con.close();
+    }
+
+    public void testCloseAfterLastRow() throws Exception {
+
+        // The caller reads the last row but does not call hasNext() again
+        expect(ps.getMaxRows()).andReturn(0);
+        expect(rs.isAfterLast()).andReturn(false);
+        expect(rs.isLast()).andReturn(true);
+        expectClose();
+        replay(ds, con, ps, rs);
+
+        ResultStream<String> stream = createStream();
+        assertEquals("row0", stream.next());
+        stream.close();
+
+        verify(ds, con, ps, rs);
+    }
+
+    public void testCloseWithUnreadRows() throws Exception {
+
+        expect(ps.getMaxRows()).andReturn(0);
+        expect(rs.isAfterLast()).andReturn(false);
+        expect(rs.isLast()).andReturn(false);
+        ps.cancel();
+        expectClose();
+        replay(ds, con, ps, rs);
+
+        ResultStream<String> stream = createStream();
+        assertEquals("row0", stream.next());
+        stream.close();
+
+        verify(ds, con, ps, rs);
+    }
+
+    public void testCloseAtMaxRows() throws Exception {
+
+        expect(ps.getMaxRows()).andReturn(1).times(2);
+        expectClose();
+        replay(ds, con, ps, rs);
+
+        ResultStream<String> stream = createStream();
+        assertEquals("row0", stream.next());
+        stream.close();
+
+        verify(ds, con, ps, rs);
+    }
+
+}